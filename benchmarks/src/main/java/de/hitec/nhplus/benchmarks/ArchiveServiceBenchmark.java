@@ -0,0 +1,91 @@
+package de.hitec.nhplus.benchmarks;
+
+import de.hitec.nhplus.Services.ArchiveService;
+import de.hitec.nhplus.datastorage.CaregiverDao;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the purge methods of the {@link ArchiveService}. A purge only has work to do once, so every iteration runs
+ * a single purge on a fresh copy of the fixture. <code>purgeInChunks</code> runs without the pause between the chunks,
+ * so it measures the cost of the chunking and not the pause.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArchiveServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int treatments;
+
+    private BenchmarkDatabase.Copy copy;
+    private ArchiveService archiveService;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws SQLException {
+        this.copy = BenchmarkDatabase.open(this.treatments);
+        this.archiveService = new ArchiveService(new PatientDao(this.copy.connection()),
+                new TreatmentDao(this.copy.connection()), new CaregiverDao(this.copy.connection()));
+        this.archiveService.setChunkPauseMillis(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws SQLException {
+        this.copy.close();
+    }
+
+    @Benchmark
+    public int deleteOldTreatments() {
+        return this.archiveService.deleteOldTreatments();
+    }
+
+    @Benchmark
+    public int deleteOldPatients() {
+        return this.archiveService.deleteOldPatients();
+    }
+
+    @Benchmark
+    public int deleteOldCaregivers() {
+        return this.archiveService.deleteOldCaregivers();
+    }
+
+    @Benchmark
+    public int purgeInChunks() throws InterruptedException {
+        return this.archiveService.purgeInChunks((tableName, deletedRows, remainingEstimate) -> {
+        });
+    }
+
+    /**
+     * Runs this benchmark.
+     *
+     * @param args Command line arguments.
+     * @throws RunnerException If the benchmark could not be run.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ArchiveServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,176 @@
+package de.hitec.nhplus.benchmarks;
+
+import de.hitec.nhplus.datastorage.UserDao;
+import de.hitec.nhplus.model.CreationData.UserCreationData;
+import de.hitec.nhplus.utils.DataGenerator;
+import de.hitec.nhplus.utils.HashPassword;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Seeded SQLite databases the benchmarks run against. A fixture is created once per number of treatments and kept in
+ * <code>target/fixtures</code>, every benchmark trial works on its own copy, so benchmarks that write do not change the
+ * fixture.
+ * <p>
+ * The data is created by the {@link DataGenerator} from a fixed seed: one patient per 100 treatments, one caregiver
+ * per two patients, 50 medicines and 10 users. About a third of the patients is archived, some of them more than ten
+ * years ago, so the archive purge has work to do.
+ * </p>
+ */
+public final class BenchmarkDatabase {
+
+    public static final int MEDICINES = 50;
+    public static final int USERS = 10;
+
+    private static final Path FIXTURES = Path.of("target", "fixtures");
+    private static final long SEED = 42;
+    private static final int PATIENTS_PER_WARD = 10;
+    private static final int CAREGIVERS_PER_WARD = 5;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Returns the number of patients in the fixture with the given number of treatments.
+     *
+     * @param treatments Number of treatments in the database.
+     * @return Number of patients, their ids run from 1 to this number.
+     */
+    public static int patientCount(int treatments) {
+        return Math.max(10, treatments / 100);
+    }
+
+    /**
+     * Returns the number of caregivers in the fixture with the given number of treatments.
+     *
+     * @param treatments Number of treatments in the database.
+     * @return Number of caregivers, their ids run from 1 to this number.
+     */
+    public static int caregiverCount(int treatments) {
+        return patientCount(treatments) / PATIENTS_PER_WARD * CAREGIVERS_PER_WARD;
+    }
+
+    /**
+     * Copies the fixture with the given number of treatments to a temporary file and opens a connection to the copy.
+     * The fixture is created first if it does not exist yet.
+     *
+     * @param treatments Number of treatments in the database.
+     * @return Connection to the copy, <code>close()</code> deletes the copy.
+     * @throws SQLException If the database could not be opened or seeded.
+     */
+    public static Copy open(int treatments) throws SQLException {
+        Path fixture = fixture(treatments);
+        try {
+            Path copy = Files.createTempFile("nhplus-benchmark-", ".db");
+            Files.copy(fixture, copy, StandardCopyOption.REPLACE_EXISTING);
+            return new Copy(copy, connect(copy));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Returns the fixture file with the given number of treatments, creating it if needed.
+     *
+     * @param treatments Number of treatments in the database.
+     * @return Path of the fixture.
+     * @throws SQLException If the fixture could not be seeded.
+     */
+    public static synchronized Path fixture(int treatments) throws SQLException {
+        Path fixture = FIXTURES.resolve("nhplus-" + treatments + ".db");
+        if (Files.isRegularFile(fixture))
+            return fixture;
+
+        try {
+            Files.createDirectories(FIXTURES);
+            Path partial = FIXTURES.resolve("nhplus-" + treatments + ".db.partial");
+            Files.deleteIfExists(partial);
+            seed(partial, treatments);
+            Files.move(partial, fixture, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return fixture;
+    }
+
+    /**
+     * Opens a connection to the given database file with foreign keys enabled, like the application does.
+     *
+     * @param file Database file.
+     * @return The connection.
+     * @throws SQLException If the connection could not be opened.
+     */
+    private static Connection connect(Path file) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.toAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = ON");
+        }
+        return connection;
+    }
+
+    /**
+     * Generates the data set with the {@link DataGenerator} and adds the users, which the generator does not create.
+     *
+     * @param file       File of the new fixture.
+     * @param treatments Number of treatments to create.
+     * @throws SQLException If the data could not be generated.
+     */
+    private static void seed(Path file, int treatments) throws SQLException {
+        DataGenerator.generateFixture(settings(treatments), file);
+
+        List<UserCreationData> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new UserCreationData("user" + i, HashPassword.hashPassword("password" + i)));
+        }
+        try (Connection connection = connect(file)) {
+            new UserDao(connection).insertAll(users);
+        }
+    }
+
+    /**
+     * Returns the settings of the data set with the given number of treatments: wards of 10 patients and 5 caregivers,
+     * 100 treatments per patient.
+     *
+     * @param treatments Number of treatments in the database.
+     * @return The settings of the generator.
+     */
+    private static DataGenerator.Settings settings(int treatments) {
+        DataGenerator.Settings defaults = DataGenerator.Settings.defaults();
+        return new DataGenerator.Settings(SEED, patientCount(treatments) / PATIENTS_PER_WARD, PATIENTS_PER_WARD,
+                CAREGIVERS_PER_WARD, treatments / patientCount(treatments), defaults.years(), MEDICINES,
+                defaults.archivedPatientRatio(), defaults.archivedCaregiverRatio(), defaults.caregiverSkew(),
+                LocalDate.now());
+    }
+
+    /**
+     * Copy of a fixture that a benchmark trial works on.
+     *
+     * @param file       File of the copy.
+     * @param connection Connection to the copy.
+     */
+    public record Copy(Path file, Connection connection) implements AutoCloseable {
+        /**
+         * Closes the connection and deletes the copy.
+         */
+        @Override
+        public void close() throws SQLException {
+            this.connection.close();
+            try {
+                Files.deleteIfExists(this.file);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+}
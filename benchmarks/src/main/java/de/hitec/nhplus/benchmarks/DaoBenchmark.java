@@ -0,0 +1,295 @@
+package de.hitec.nhplus.benchmarks;
+
+import de.hitec.nhplus.datastorage.CaregiverDao;
+import de.hitec.nhplus.datastorage.MedicineDao;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.datastorage.UserDao;
+import de.hitec.nhplus.model.Caregiver;
+import de.hitec.nhplus.model.Medicine;
+import de.hitec.nhplus.model.Patient;
+import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.User;
+import de.hitec.nhplus.model.CreationData.CaregiverCreationData;
+import de.hitec.nhplus.model.CreationData.MedicineCreationData;
+import de.hitec.nhplus.model.CreationData.PatientCreationData;
+import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
+import de.hitec.nhplus.model.CreationData.UserCreationData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <code>create</code>, <code>getById</code>, <code>getAll</code>, <code>update</code> and
+ * <code>delete</code> of every DAO against the seeded databases of {@link BenchmarkDatabase}. Every trial works on its
+ * own copy of the fixture, so the rows created by one trial do not show up in the next one.
+ * <p>
+ * Run a single size with:
+ * </p>
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar DaoBenchmark -p treatments=100000
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmark {
+
+    /**
+     * Copy of a fixture with the DAOs on its connection.
+     */
+    @State(Scope.Benchmark)
+    public static class Database {
+
+        @Param({"1000", "100000", "1000000"})
+        public int treatments;
+
+        BenchmarkDatabase.Copy copy;
+        PatientDao patientDao;
+        CaregiverDao caregiverDao;
+        TreatmentDao treatmentDao;
+        MedicineDao medicineDao;
+        UserDao userDao;
+
+        Patient patient;
+        Caregiver caregiver;
+        Treatment treatment;
+        Medicine medicine;
+        User user;
+
+        private final SplittableRandom random = new SplittableRandom(42);
+        private long createdUsers;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            this.copy = BenchmarkDatabase.open(this.treatments);
+            this.patientDao = new PatientDao(this.copy.connection());
+            this.caregiverDao = new CaregiverDao(this.copy.connection());
+            this.treatmentDao = new TreatmentDao(this.copy.connection());
+            this.medicineDao = new MedicineDao(this.copy.connection());
+            this.userDao = new UserDao(this.copy.connection());
+
+            this.patient = this.patientDao.getById(1).orElseThrow();
+            this.caregiver = this.caregiverDao.getById(1).orElseThrow();
+            this.treatment = this.treatmentDao.getById(1).orElseThrow();
+            this.medicine = this.medicineDao.getById(1).orElseThrow();
+            this.user = this.userDao.getById(1).orElseThrow();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            this.copy.close();
+        }
+
+        long randomId(int count) {
+            return 1 + this.random.nextInt(count);
+        }
+
+        PatientCreationData newPatient() {
+            return new PatientCreationData("Max", "Mustermann", LocalDate.of(1950, 3, 14), "3", "112", null);
+        }
+
+        CaregiverCreationData newCaregiver() {
+            return new CaregiverCreationData("Erika", "Musterfrau", "+49 176 12345678", null);
+        }
+
+        TreatmentCreationData newTreatment() {
+            return new TreatmentCreationData(this.randomId(BenchmarkDatabase.patientCount(this.treatments)),
+                    LocalDate.now(), LocalTime.of(9, 0), LocalTime.of(9, 30), "Verbandswechsel", "ohne Befund",
+                    this.randomId(BenchmarkDatabase.caregiverCount(this.treatments)),
+                    this.randomId(BenchmarkDatabase.MEDICINES), null);
+        }
+
+        MedicineCreationData newMedicine() {
+            return new MedicineCreationData("Ibuprofen 400", "Regal A", LocalDate.now().plusYears(2));
+        }
+
+        UserCreationData newUser() {
+            // user names are unique
+            return new UserCreationData("benchmark" + this.createdUsers++, "5f4dcc3b5aa765d61d8327deb882cf99");
+        }
+    }
+
+    /**
+     * Creates a row before every invocation of a <code>delete</code> benchmark, so every invocation deletes a row.
+     * The invocation level setup adds some overhead to the measurement, which is small compared to a delete that
+     * commits to the database file.
+     */
+    @State(Scope.Thread)
+    public static class Deletion {
+        long patientId;
+        long caregiverId;
+        long treatmentId;
+        long medicineId;
+        long userId;
+
+        @Setup(Level.Invocation)
+        public void setUp(Database database) {
+            this.patientId = database.patientDao.create(database.newPatient()).getId();
+            this.caregiverId = database.caregiverDao.create(database.newCaregiver()).getId();
+            this.treatmentId = database.treatmentDao.create(database.newTreatment()).getId();
+            this.medicineId = database.medicineDao.create(database.newMedicine()).getId();
+            this.userId = database.userDao.create(database.newUser()).getId();
+        }
+    }
+
+    @Benchmark
+    public Patient createPatient(Database database) {
+        return database.patientDao.create(database.newPatient());
+    }
+
+    @Benchmark
+    public Caregiver createCaregiver(Database database) {
+        return database.caregiverDao.create(database.newCaregiver());
+    }
+
+    @Benchmark
+    public Treatment createTreatment(Database database) {
+        return database.treatmentDao.create(database.newTreatment());
+    }
+
+    @Benchmark
+    public Medicine createMedicine(Database database) {
+        return database.medicineDao.create(database.newMedicine());
+    }
+
+    @Benchmark
+    public User createUser(Database database) {
+        return database.userDao.create(database.newUser());
+    }
+
+    @Benchmark
+    public Optional<Patient> getPatientById(Database database) {
+        return database.patientDao.getById(database.randomId(BenchmarkDatabase.patientCount(database.treatments)));
+    }
+
+    @Benchmark
+    public Optional<Caregiver> getCaregiverById(Database database) {
+        return database.caregiverDao.getById(database.randomId(BenchmarkDatabase.caregiverCount(database.treatments)));
+    }
+
+    @Benchmark
+    public Optional<Treatment> getTreatmentById(Database database) {
+        return database.treatmentDao.getById(database.randomId(database.treatments));
+    }
+
+    @Benchmark
+    public Optional<Medicine> getMedicineById(Database database) {
+        return database.medicineDao.getById(database.randomId(BenchmarkDatabase.MEDICINES));
+    }
+
+    @Benchmark
+    public Optional<User> getUserById(Database database) {
+        return database.userDao.getById(database.randomId(BenchmarkDatabase.USERS));
+    }
+
+    @Benchmark
+    public List<Patient> getAllPatients(Database database) {
+        return database.patientDao.getAll();
+    }
+
+    @Benchmark
+    public List<Caregiver> getAllCaregivers(Database database) {
+        return database.caregiverDao.getAll();
+    }
+
+    @Benchmark
+    public List<Treatment> getAllTreatments(Database database) {
+        return database.treatmentDao.getAll();
+    }
+
+    @Benchmark
+    public List<Medicine> getAllMedicines(Database database) {
+        return database.medicineDao.getAll();
+    }
+
+    @Benchmark
+    public List<User> getAllUsers(Database database) {
+        return database.userDao.getAll();
+    }
+
+    @Benchmark
+    public Patient updatePatient(Database database) {
+        return database.patientDao.update(database.patient);
+    }
+
+    @Benchmark
+    public Caregiver updateCaregiver(Database database) {
+        return database.caregiverDao.update(database.caregiver);
+    }
+
+    @Benchmark
+    public Treatment updateTreatment(Database database) {
+        return database.treatmentDao.update(database.treatment);
+    }
+
+    @Benchmark
+    public Medicine updateMedicine(Database database) {
+        return database.medicineDao.update(database.medicine);
+    }
+
+    @Benchmark
+    public User updateUser(Database database) {
+        return database.userDao.update(database.user);
+    }
+
+    @Benchmark
+    public Optional<Patient> deletePatient(Database database, Deletion deletion) {
+        return database.patientDao.delete(deletion.patientId);
+    }
+
+    @Benchmark
+    public Optional<Caregiver> deleteCaregiver(Database database, Deletion deletion) {
+        return database.caregiverDao.delete(deletion.caregiverId);
+    }
+
+    @Benchmark
+    public Optional<Treatment> deleteTreatment(Database database, Deletion deletion) {
+        return database.treatmentDao.delete(deletion.treatmentId);
+    }
+
+    @Benchmark
+    public Optional<Medicine> deleteMedicine(Database database, Deletion deletion) {
+        return database.medicineDao.delete(deletion.medicineId);
+    }
+
+    @Benchmark
+    public Optional<User> deleteUser(Database database, Deletion deletion) {
+        return database.userDao.delete(deletion.userId);
+    }
+
+    /**
+     * Runs this benchmark.
+     *
+     * @param args Command line arguments.
+     * @throws RunnerException If the benchmark could not be run.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DaoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package de.hitec.nhplus.benchmarks;
+
+import de.hitec.nhplus.utils.DateConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the <code>DateConverter</code> with the previous implementation, which created a new
+ * <code>DateTimeFormatter</code> on every call. Run with the GC profiler to see the allocation per call in
+ * <code>gc.alloc.rate.norm</code>:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar DateConverterBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateConverterBenchmark {
+
+    // a power of two, so the index wraps with a mask
+    private static final int SAMPLES = 1024;
+
+    private final String[] dateStrings = new String[SAMPLES];
+    private final String[] timeStrings = new String[SAMPLES];
+    private final LocalDate[] dates = new LocalDate[SAMPLES];
+    private final LocalTime[] times = new LocalTime[SAMPLES];
+    private int index;
+
+    /**
+     * Fills the samples with different dates and times, so the benchmarks do not convert a constant.
+     */
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            this.dates[i] = LocalDate.of(1940, 1, 1).plusDays(i * 31L);
+            this.times[i] = LocalTime.of(i % 24, (i * 7) % 60);
+            this.dateStrings[i] = this.dates[i].toString();
+            this.timeStrings[i] = Legacy.convertLocalTimeToString(this.times[i]);
+        }
+    }
+
+    private int next() {
+        this.index = (this.index + 1) & (SAMPLES - 1);
+        return this.index;
+    }
+
+    @Benchmark
+    public LocalDate parseDateLegacy() {
+        return Legacy.convertStringToLocalDate(this.dateStrings[next()]);
+    }
+
+    @Benchmark
+    public LocalDate parseDate() {
+        return DateConverter.convertStringToLocalDate(this.dateStrings[next()]);
+    }
+
+    @Benchmark
+    public LocalTime parseTimeLegacy() {
+        return Legacy.convertStringToLocalTime(this.timeStrings[next()]);
+    }
+
+    @Benchmark
+    public LocalTime parseTime() {
+        return DateConverter.convertStringToLocalTime(this.timeStrings[next()]);
+    }
+
+    @Benchmark
+    public String formatDateLegacy() {
+        return Legacy.convertLocalDateToString(this.dates[next()]);
+    }
+
+    @Benchmark
+    public String formatDate() {
+        return DateConverter.convertLocalDateToString(this.dates[next()]);
+    }
+
+    @Benchmark
+    public String formatTimeLegacy() {
+        return Legacy.convertLocalTimeToString(this.times[next()]);
+    }
+
+    @Benchmark
+    public String formatTime() {
+        return DateConverter.convertLocalTimeToString(this.times[next()]);
+    }
+
+    /**
+     * Runs this benchmark with the GC profiler.
+     *
+     * @param args Command line arguments.
+     * @throws RunnerException If the benchmark could not be run.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DateConverterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * The previous implementation of the <code>DateConverter</code>, kept as the baseline.
+     */
+    private static final class Legacy {
+        private static final String DATE_FORMAT = "yyyy-MM-dd";
+        private static final String TIME_FORMAT = "HH:mm";
+
+        static LocalDate convertStringToLocalDate(String date) {
+            return LocalDate.parse(date, DateTimeFormatter.ofPattern(DATE_FORMAT));
+        }
+
+        static LocalTime convertStringToLocalTime(String time) {
+            return LocalTime.parse(time, DateTimeFormatter.ofPattern(TIME_FORMAT));
+        }
+
+        static String convertLocalDateToString(LocalDate date) {
+            return date.format(DateTimeFormatter.ofPattern(DATE_FORMAT));
+        }
+
+        static String convertLocalTimeToString(LocalTime time) {
+            return time.format(DateTimeFormatter.ofPattern(TIME_FORMAT));
+        }
+    }
+}
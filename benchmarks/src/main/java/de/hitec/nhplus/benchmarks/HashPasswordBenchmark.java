@@ -0,0 +1,61 @@
+package de.hitec.nhplus.benchmarks;
+
+import de.hitec.nhplus.utils.HashPassword;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures <code>HashPassword</code>, which runs on every login and every new user.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashPasswordBenchmark {
+
+    // a power of two, so the index wraps with a mask
+    private static final int SAMPLES = 64;
+
+    private final String[] passwords = new String[SAMPLES];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            this.passwords[i] = "Passwort" + i * 7919;
+        }
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        this.index = (this.index + 1) & (SAMPLES - 1);
+        return HashPassword.hashPassword(this.passwords[this.index]);
+    }
+
+    /**
+     * Runs this benchmark.
+     *
+     * @param args Command line arguments.
+     * @throws RunnerException If the benchmark could not be run.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HashPasswordBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
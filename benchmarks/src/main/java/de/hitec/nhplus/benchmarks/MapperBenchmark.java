@@ -0,0 +1,150 @@
+package de.hitec.nhplus.benchmarks;
+
+import de.hitec.nhplus.model.Caregiver;
+import de.hitec.nhplus.model.Medicine;
+import de.hitec.nhplus.model.Patient;
+import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the <code>fromResultSet</code> mappers of the entities. Every benchmark reads up to 1000 rows of a table
+ * and maps them, <code>readColumns</code> only reads the columns of the treatments without creating entities and
+ * is the baseline for the cost of the query and the driver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int ROWS = 1000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int treatments;
+
+    private BenchmarkDatabase.Copy copy;
+    private PreparedStatement patients;
+    private PreparedStatement caregivers;
+    private PreparedStatement treatmentRows;
+    private PreparedStatement medicines;
+    private PreparedStatement users;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        this.copy = BenchmarkDatabase.open(this.treatments);
+        this.patients = this.prepare("patient");
+        this.caregivers = this.prepare("caregiver");
+        this.treatmentRows = this.prepare("treatment");
+        this.medicines = this.prepare("medicine");
+        this.users = this.prepare("user");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        this.copy.close();
+    }
+
+    private PreparedStatement prepare(String table) throws SQLException {
+        final String SQL = "SELECT * FROM " + table + " LIMIT " + ROWS;
+        return this.copy.connection().prepareStatement(SQL);
+    }
+
+    @Benchmark
+    public void readColumns(Blackhole blackhole) throws SQLException {
+        try (ResultSet result = this.treatmentRows.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(result.getLong(1));
+                blackhole.consume(result.getLong(2));
+                blackhole.consume(result.getLong(3));
+                blackhole.consume(result.getInt(4));
+                blackhole.consume(result.getInt(5));
+                blackhole.consume(result.getString(6));
+                blackhole.consume(result.getString(7));
+                blackhole.consume(result.getLong(8));
+                blackhole.consume(result.getLong(9));
+                blackhole.consume(result.getObject(10));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapTreatments(Blackhole blackhole) throws SQLException {
+        try (ResultSet result = this.treatmentRows.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(Treatment.fromResultSet(result));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapPatients(Blackhole blackhole) throws SQLException {
+        try (ResultSet result = this.patients.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(Patient.fromResultSet(result));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapCaregivers(Blackhole blackhole) throws SQLException {
+        try (ResultSet result = this.caregivers.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(Caregiver.fromResultSet(result));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapMedicines(Blackhole blackhole) throws SQLException {
+        try (ResultSet result = this.medicines.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(Medicine.fromResultSet(result));
+            }
+        }
+    }
+
+    @Benchmark
+    public void mapUsers(Blackhole blackhole) throws SQLException {
+        try (ResultSet result = this.users.executeQuery()) {
+            while (result.next()) {
+                blackhole.consume(User.fromResultSet(result));
+            }
+        }
+    }
+
+    /**
+     * Runs this benchmark.
+     *
+     * @param args Command line arguments.
+     * @throws RunnerException If the benchmark could not be run.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -1,17 +1,22 @@
 package de.hitec.nhplus;
 
-import de.hitec.nhplus.Services.ArchiveService;
-import de.hitec.nhplus.datastorage.ConnectionBuilder;
+import de.hitec.nhplus.Services.ArchiveScheduler;
+import de.hitec.nhplus.datastorage.ConnectionPool;
+import de.hitec.nhplus.datastorage.DaoExecutor;
+import de.hitec.nhplus.datastorage.SchemaMigrator;
 
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * The <code>Main</code> class is the starting point of the application.
@@ -43,7 +48,9 @@ public class Main extends Application {
             this.primaryStage.show();
 
             this.primaryStage.setOnCloseRequest(event -> {
-                ConnectionBuilder.closeConnection();
+                ArchiveScheduler.getInstance().shutdown();
+                DaoExecutor.shutdown();
+                ConnectionPool.shutdown();
                 Platform.exit();
                 System.exit(0);
             });
@@ -58,18 +65,53 @@ public class Main extends Application {
      * @param args Command line arguments.
      */
     public static void main(String[] args) {
-        var archiveService = ArchiveService.getInstance();
-
-        // delete old archived entries
-        var deletedTreatments = archiveService.deleteOldTreatments();
-        System.out.println("Deleted " + deletedTreatments + " archived treatments.");
+        try {
+            System.out.println("Database profile: " + ConnectionPool.getInstance().describeProfile());
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
 
-        var deletedPatients = archiveService.deleteOldPatients();
-        System.out.println("Deleted " + deletedPatients + " archived patients.");
+        // brings databases created by older versions up to date, an up to date schema only costs reading the version
+        try {
+            SchemaMigrator.migrate();
+        } catch (SQLException exception) {
+            // a partly migrated database is not opened, the DAOs would misread the columns of the old schema
+            exception.printStackTrace();
+            Main.showStartupError("Die Datenbank konnte nicht auf den aktuellen Stand gebracht werden.\n"
+                    + exception.getMessage());
+            ConnectionPool.shutdown();
+            System.exit(1);
+        }
 
-        var deletedCaregivers = archiveService.deleteOldCaregivers();
-        System.out.println("Deleted " + deletedCaregivers + " archived caregivers.");
+        // old archived entries are deleted in the background, the login does not wait for it
+        ArchiveScheduler.getInstance().start();
 
         launch(args);
     }
+
+    /**
+     * Shows an error that prevents the application from starting. The message is printed on the console and, if a
+     * display is available, shown in a dialog before the application exits.
+     *
+     * @param message Message of the error.
+     */
+    private static void showStartupError(String message) {
+        System.err.println(message);
+        try {
+            CountDownLatch closed = new CountDownLatch(1);
+            Platform.startup(() -> {
+                try {
+                    Alert alert = new Alert(Alert.AlertType.ERROR, message);
+                    alert.setTitle("NHPlus");
+                    alert.setHeaderText("NHPlus kann nicht gestartet werden!");
+                    alert.showAndWait();
+                } finally {
+                    closed.countDown();
+                }
+            });
+            closed.await();
+        } catch (RuntimeException | InterruptedException exception) {
+            // no display, the message on the console has to do
+        }
+    }
 }
\ No newline at end of file
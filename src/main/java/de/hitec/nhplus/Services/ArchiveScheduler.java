@@ -0,0 +1,239 @@
+package de.hitec.nhplus.Services;
+
+import de.hitec.nhplus.utils.Settings;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static de.hitec.nhplus.utils.Settings.readNumber;
+
+/**
+ * The <code>ArchiveScheduler</code> runs the chunked purge of the {@link ArchiveService} on a background thread, so
+ * the startup of the application does not depend on the size of the archive. The purge runs shortly after startup and
+ * then nightly or in a fixed interval.
+ * <p>
+ * The schedule is read from <code>archive.properties</code> on the class path. An <code>archive.properties</code> file
+ * in the <code>db</code> folder overrides single values of the defaults.
+ * </p>
+ */
+public class ArchiveScheduler {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private static ArchiveScheduler instance;
+
+    private final ArchiveService archiveService;
+    private final long initialDelaySeconds;
+    private final LocalTime runAt;
+    private final long intervalHours;
+    private final List<Consumer<String>> statusListeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService executor;
+    private volatile String status = "Archivbereinigung geplant";
+
+    /**
+     * Creates a scheduler for the given service from the given properties. Missing or invalid values fall back to a
+     * purge 30 seconds after startup and every night at 02:00.
+     *
+     * @param archiveService Service that purges the archive.
+     * @param properties     Properties to read the schedule from.
+     */
+    ArchiveScheduler(ArchiveService archiveService, Properties properties) {
+        this.archiveService = archiveService;
+        this.initialDelaySeconds = Math.max(0, readNumber(properties, "initial_delay_seconds", 30));
+        this.runAt = readTime(properties, "run_at", LocalTime.of(2, 0));
+        this.intervalHours = Math.max(1, readNumber(properties, "interval_hours", 24));
+
+        this.archiveService.setChunkSize((int) Math.max(1, readNumber(properties, "chunk_size",
+                ArchiveService.DEFAULT_CHUNK_SIZE)));
+        this.archiveService.setChunkPauseMillis(Math.max(0, readNumber(properties, "chunk_pause_millis",
+                ArchiveService.DEFAULT_CHUNK_PAUSE_MILLIS)));
+    }
+
+    /**
+     * Returns the scheduler of the application. It is created on first use.
+     *
+     * @return The archive scheduler.
+     */
+    public static synchronized ArchiveScheduler getInstance() {
+        if (ArchiveScheduler.instance == null) {
+            ArchiveScheduler.instance = new ArchiveScheduler(ArchiveService.getInstance(),
+                    Settings.load("archive.properties"));
+        }
+        return ArchiveScheduler.instance;
+    }
+
+    /**
+     * Starts the background thread and schedules the first purge. Does nothing if the scheduler is running already.
+     */
+    public synchronized void start() {
+        if (this.executor != null)
+            return;
+
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "archive-purge");
+            // the purge must neither keep the application alive nor compete with the user interface
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.executor.schedule(this::runAndReschedule, this.initialDelaySeconds, TimeUnit.SECONDS);
+        System.out.println("Archive purge scheduled in " + this.initialDelaySeconds + " seconds.");
+    }
+
+    /**
+     * Stops the background thread. A running purge is interrupted during its next pause between two chunks, the chunks
+     * committed so far stay deleted and the next purge continues where this one stopped.
+     */
+    public synchronized void shutdown() {
+        if (this.executor == null)
+            return;
+
+        this.executor.shutdownNow();
+        try {
+            this.executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        this.executor = null;
+    }
+
+    /**
+     * Runs a purge and schedules the next one.
+     */
+    private void runAndReschedule() {
+        this.runNow();
+
+        synchronized (this) {
+            if (this.executor != null && !this.executor.isShutdown()) {
+                this.executor.schedule(this::runAndReschedule, this.getDelayUntilNextRun(LocalDateTime.now()).toSeconds(),
+                        TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Purges the archive on the calling thread and reports the progress to the log and the status listeners. A purge
+     * that fails is reported as failed, the chunks deleted before the failure stay deleted.
+     *
+     * @return the total number of deleted rows, <code>0</code> if the purge was interrupted or failed
+     */
+    public int runNow() {
+        this.publish("Archivbereinigung läuft...");
+        long start = System.nanoTime();
+
+        try {
+            int deleted = this.archiveService.purgeInChunks((tableName, deletedRows, remainingEstimate) ->
+                    this.publish("Archivbereinigung: " + deletedRows + " aus " + tableName + " gelöscht, ca. "
+                            + remainingEstimate + " verbleibend"));
+
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println("Archive purge deleted " + deleted + " rows in " + millis + " ms.");
+            this.publish("Archivbereinigung abgeschlossen: " + deleted + " Einträge gelöscht ("
+                    + LocalTime.now().format(TIME_FORMAT) + ")");
+            return deleted;
+        } catch (InterruptedException exception) {
+            System.out.println("Archive purge interrupted, it continues with the next run.");
+            this.publish("Archivbereinigung unterbrochen");
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (RuntimeException exception) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            System.out.println("Archive purge failed after " + millis + " ms, it is retried with the next run.");
+            exception.printStackTrace();
+            this.publish("Archivbereinigung fehlgeschlagen (" + LocalTime.now().format(TIME_FORMAT) + ")");
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the time until the next scheduled purge. With a configured time of day, this is the next occurrence of
+     * that time, otherwise the configured interval.
+     *
+     * @param now The current time.
+     * @return The delay until the next purge.
+     */
+    Duration getDelayUntilNextRun(LocalDateTime now) {
+        if (this.runAt == null)
+            return Duration.ofHours(this.intervalHours);
+
+        LocalDateTime next = now.toLocalDate().atTime(this.runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next);
+    }
+
+    /**
+     * Registers a listener that receives the status of the purge. The listener is called with the current status
+     * immediately and afterwards on the background thread, UI code has to pass the text on to the application thread.
+     *
+     * @param listener Listener to register.
+     */
+    public void addStatusListener(Consumer<String> listener) {
+        this.statusListeners.add(listener);
+        listener.accept(this.status);
+    }
+
+    /**
+     * Removes a listener registered with <code>addStatusListener()</code>.
+     *
+     * @param listener Listener to remove.
+     */
+    public void removeStatusListener(Consumer<String> listener) {
+        this.statusListeners.remove(listener);
+    }
+
+    /**
+     * Returns the latest status of the purge.
+     *
+     * @return The status text.
+     */
+    public String getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Stores the given status and passes it to all listeners.
+     *
+     * @param status The new status text.
+     */
+    private void publish(String status) {
+        this.status = status;
+        this.statusListeners.forEach(listener -> listener.accept(status));
+    }
+
+    /**
+     * Reads a time of day of the given key. An empty value disables the time of day, invalid values are reported and
+     * replaced by the default.
+     *
+     * @param properties   Properties to read from.
+     * @param key          Key of the value.
+     * @param defaultValue Value used if the key is missing or invalid.
+     * @return The value of the key, <code>null</code> if it is empty.
+     */
+    private static LocalTime readTime(Properties properties, String key, LocalTime defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        if (value.isBlank())
+            return null;
+
+        try {
+            return LocalTime.parse(value.trim(), TIME_FORMAT);
+        } catch (DateTimeParseException exception) {
+            Settings.reportInvalid(key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package de.hitec.nhplus.Services;
 
 import de.hitec.nhplus.datastorage.*;
-import de.hitec.nhplus.model.Caregiver;
-import de.hitec.nhplus.model.Patient;
-import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.Exceptions.UpdateException;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
 
 /**
  * Service for managing archive-related operations on patients, caregivers, and treatments in the database.
  * Utilizes the singleton pattern to ensure only one instance of the service.
  */
 public class ArchiveService {
+    /**
+     * Number of years archived entries are kept before they can be deleted, see <code>canBeDeleted()</code>.
+     */
+    public static final int RETENTION_YEARS = 10;
+
+    public static final int DEFAULT_CHUNK_SIZE = 5000;
+    public static final long DEFAULT_CHUNK_PAUSE_MILLIS = 50;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long chunkPauseMillis = DEFAULT_CHUNK_PAUSE_MILLIS;
+
     private final PatientDao patientDao;
     private final TreatmentDao treatmentDao;
     private final CaregiverDao caregiverDao;
@@ -51,71 +63,141 @@ public class ArchiveService {
         return ArchiveServiceHolder.instance;
     }
 
+    /**
+     * Returns the date before which archived entries can be deleted.
+     *
+     * @return the date <code>RETENTION_YEARS</code> years ago
+     */
+    private LocalDate getCutoff() {
+        return LocalDate.now().minusYears(RETENTION_YEARS);
+    }
+
     /**
      * Deletes archived patients that have no associated, undeletable treatments.
      *
      * @return the number of deleted patients
+     * @throws UpdateException If the rows could not be deleted.
      */
     public int deleteOldPatients() {
-        var patients = patientDao.getAllArchived();
-        var treatments = treatmentDao.getAll();
-        int count = 0;
-
-        for (Patient patient : patients) {
-            if (patient.canBeDeleted() &&
-                    treatments.stream().noneMatch(treatment -> treatment.getPid() == patient.getId() && !treatment.canBeDeleted())) {
-                patientDao.delete(patient.getId());
-                count++;
-            }
-        }
-
-        return count;
+        return patientDao.deleteArchivedBefore(getCutoff());
     }
 
     /**
      * Deletes archived caregivers that have no associated, undeletable treatments.
      *
      * @return the number of deleted caregivers
+     * @throws UpdateException If the rows could not be deleted.
      */
     public int deleteOldCaregivers() {
-        var caregivers = caregiverDao.getAllArchived();
-        var treatments = treatmentDao.getAll();
-        int count = 0;
-
-        for (Caregiver caregiver : caregivers) {
-            if (caregiver.canBeDeleted()) {
-                boolean b = true;
-                for (Treatment treatment : treatments) {
-                    if (treatment.getCid() == caregiver.getId() && !treatment.canBeDeleted()) {
-                        b = false;
-                        break;
-                    }
-                }
-                if (b) {
-                    caregiverDao.delete(caregiver.getId());
-                    count++;
-                }
-            }
-        }
-
-        return count;
+        return caregiverDao.deleteArchivedBefore(getCutoff());
     }
 
     /**
      * Deletes all treatments that are older than 10 years.
      * @return the number of deleted treatments.
+     * @throws UpdateException If the rows could not be deleted.
      */
     public int deleteOldTreatments() {
-        var treatments = treatmentDao.getAll();
-        var count = 0;
+        return treatmentDao.deleteArchivedBefore(getCutoff());
+    }
+
+    /**
+     * Deletes old treatments, patients and caregivers in chunks of <code>getChunkSize()</code> archived rows. Every
+     * chunk is its own transaction, between the chunks the write connection is released for a short pause, so other
+     * writes are not blocked for long. The purge continues where an interrupted purge stopped.
+     *
+     * @param progress Receives the progress after every chunk.
+     * @return the total number of deleted rows
+     * @throws InterruptedException If the thread is interrupted during a pause. The committed chunks stay deleted.
+     * @throws UpdateException      If a chunk could not be deleted. The chunks committed before stay deleted.
+     */
+    public int purgeInChunks(PurgeProgress progress) throws InterruptedException {
+        LocalDate cutoff = getCutoff();
+
+        // treatments first, so patients and caregivers referenced only by old treatments can be deleted as well
+        return purgeInChunks(treatmentDao, TreatmentDao.TABLE_NAME, cutoff, progress)
+                + purgeInChunks(patientDao, PatientDao.TABLE_NAME, cutoff, progress)
+                + purgeInChunks(caregiverDao, CaregiverDao.TABLE_NAME, cutoff, progress);
+    }
+
+    /**
+     * Deletes the old rows of one table chunk by chunk.
+     *
+     * @param dao       The dao of the table.
+     * @param tableName Name of the table, passed to the progress.
+     * @param cutoff    Rows archived before this date are deleted.
+     * @param progress  Receives the progress after every chunk.
+     * @return the number of deleted rows
+     * @throws InterruptedException If the thread is interrupted during a pause.
+     * @throws UpdateException      If the rows could not be counted or a chunk could not be deleted.
+     */
+    private int purgeInChunks(DaoImp<?, ?> dao, String tableName, LocalDate cutoff, PurgeProgress progress)
+            throws InterruptedException {
+        long remaining;
+        try {
+            remaining = dao.countArchivedAfterWatermark(cutoff);
+        } catch (SQLException exception) {
+            throw new UpdateException("Could not count the rows to purge in " + tableName + ": "
+                    + exception.getMessage());
+        }
+        int deleted = 0;
 
-        for (Treatment treatment : treatments) {
-            if (treatment.canBeDeleted()) {
-                treatmentDao.delete(treatment.getId());
-                count++;
+        while (true) {
+            PurgeChunk chunk;
+            try {
+                chunk = dao.deleteArchivedChunk(cutoff, this.chunkSize);
+            } catch (SQLException exception) {
+                throw new UpdateException("Could not purge " + tableName + " after " + deleted + " deleted rows: "
+                        + exception.getMessage());
             }
+
+            deleted += chunk.deleted();
+            remaining = Math.max(0, remaining - chunk.processed());
+            progress.onChunk(tableName, deleted, remaining);
+
+            if (chunk.finished())
+                return deleted;
+
+            Thread.sleep(this.chunkPauseMillis);
         }
+    }
+
+    /**
+     * Returns the maximum number of archived rows one chunk of <code>purgeInChunks()</code> looks at.
+     *
+     * @return the chunk size
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Sets the maximum number of archived rows one chunk of <code>purgeInChunks()</code> looks at.
+     *
+     * @param chunkSize the chunk size, at least 1
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size must be at least 1");
 
-        return count;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the pause between two chunks of <code>purgeInChunks()</code>.
+     *
+     * @return the pause in milliseconds
+     */
+    public long getChunkPauseMillis() {
+        return this.chunkPauseMillis;
+    }
+
+    /**
+     * Sets the pause between two chunks of <code>purgeInChunks()</code>.
+     *
+     * @param chunkPauseMillis the pause in milliseconds
+     */
+    public void setChunkPauseMillis(long chunkPauseMillis) {
+        this.chunkPauseMillis = chunkPauseMillis;
     }
 }
@@ -0,0 +1,16 @@
+package de.hitec.nhplus.Services;
+
+/**
+ * Receives the progress of a chunked purge of the <code>ArchiveService</code>. Called after every committed chunk.
+ */
+@FunctionalInterface
+public interface PurgeProgress {
+    /**
+     * Reports the progress of the purge of one table.
+     *
+     * @param tableName         Name of the table that is purged.
+     * @param deleted           Number of rows deleted from the table so far.
+     * @param remainingEstimate Estimated number of archived rows that still have to be looked at.
+     */
+    void onChunk(String tableName, int deleted, long remainingEstimate);
+}
@@ -5,7 +5,7 @@ import de.hitec.nhplus.datastorage.*;
 import de.hitec.nhplus.model.CreationData.CaregiverCreationData;
 import de.hitec.nhplus.model.CreationData.PatientCreationData;
 import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
-import de.hitec.nhplus.utils.SetUpDB;
+import de.hitec.nhplus.model.Exceptions.UpdateException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,10 +14,14 @@ import org.junit.Test;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
 
 import static de.hitec.nhplus.utils.DateConverter.convertStringToLocalDate;
 import static de.hitec.nhplus.utils.DateConverter.convertStringToLocalTime;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Test class for the <code>ArchiveService</code>.
@@ -55,11 +59,9 @@ public class ArchiveServiceTest {
         insertArchiveTestData();
     }
 
-    private void createSchema() {
+    private void createSchema() throws SQLException {
         // Create schema and tables
-        SetUpDB.setUpTablePatient(connection);
-        SetUpDB.setUpTableTreatment(connection);
-        SetUpDB.setUpTableCaregiver(connection);
+        SchemaMigrator.migrate(connection);
     }
 
     /**
@@ -105,6 +107,103 @@ public class ArchiveServiceTest {
         System.out.println("remainingTreatments: " + remainingTreatments.size());
     }
 
+    /**
+     * Tests the chunked purge of the <code>ArchiveService</code>.
+     * <p>
+     * Uses chunks of a single row, so the watermark has to carry the purge over every chunk. Verifies that the chunked
+     * purge deletes the same rows as the set-based purge and reports its progress.
+     */
+    @Test
+    public void testChunkedPurge() throws InterruptedException {
+        final int expectedDeletedRows = 6;
+
+        final int expectedRemainingPatients = 1;
+        final int expectedRemainingCaregivers = 1;
+        final int expectedRemainingTreatments = 2;
+
+        archiveService.setChunkSize(1);
+        archiveService.setChunkPauseMillis(0);
+
+        var reportedDeleted = new HashMap<String, Integer>();
+        var deletedRows = archiveService.purgeInChunks((tableName, deleted, remainingEstimate) ->
+                reportedDeleted.put(tableName, deleted));
+
+        assertEquals("Expected " + expectedDeletedRows + " deleted rows, but got " + deletedRows, expectedDeletedRows, deletedRows);
+        assertEquals(Integer.valueOf(2), reportedDeleted.get(TreatmentDao.TABLE_NAME));
+        assertEquals(Integer.valueOf(2), reportedDeleted.get(PatientDao.TABLE_NAME));
+        assertEquals(Integer.valueOf(2), reportedDeleted.get(CaregiverDao.TABLE_NAME));
+
+        assertEquals(expectedRemainingPatients, patientDao.getAll().size());
+        assertEquals(expectedRemainingCaregivers, caregiverDao.getAll().size());
+        assertEquals(expectedRemainingTreatments, treatmentDao.getAll().size());
+
+        // a finished purge resets the watermark and finds nothing left to delete
+        assertEquals(0, archiveService.purgeInChunks((tableName, deleted, remainingEstimate) -> {
+        }));
+    }
+
+    /**
+     * Tests that the chunked purge reports a failed chunk instead of returning the rows deleted so far.
+     */
+    @Test
+    public void testChunkedPurgeFailure() throws SQLException, InterruptedException {
+        archiveService.setChunkPauseMillis(0);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER fail_patient_delete BEFORE DELETE ON patient " +
+                    "BEGIN SELECT RAISE(ABORT, 'patient locked'); END");
+        }
+
+        try {
+            archiveService.purgeInChunks((tableName, deleted, remainingEstimate) -> {
+            });
+            fail("Expected the failed chunk to be reported");
+        } catch (UpdateException exception) {
+            assertTrue(exception.getMessage().contains(PatientDao.TABLE_NAME));
+        }
+
+        // the treatments of the chunks before the failure stay deleted
+        assertEquals(2, treatmentDao.getAll().size());
+    }
+
+    /**
+     * Tests that the chunked purge reports a failed count of the remaining rows instead of estimating 0 rows.
+     */
+    @Test
+    public void testChunkedPurgeCountFailure() throws SQLException, InterruptedException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + DaoImp.WATERMARK_TABLE);
+        }
+
+        try {
+            archiveService.purgeInChunks((tableName, deleted, remainingEstimate) ->
+                    fail("Expected no progress without the count"));
+            fail("Expected the failed count to be reported");
+        } catch (UpdateException exception) {
+            assertTrue(exception.getMessage().contains(TreatmentDao.TABLE_NAME));
+        }
+    }
+
+    /**
+     * Tests that the set-based purge reports a failed delete instead of returning 0 deleted rows.
+     */
+    @Test
+    public void testPurgeFailure() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER fail_patient_delete BEFORE DELETE ON patient " +
+                    "BEGIN SELECT RAISE(ABORT, 'patient locked'); END");
+        }
+
+        try {
+            archiveService.deleteOldPatients();
+            fail("Expected the failed delete to be reported");
+        } catch (UpdateException exception) {
+            assertTrue(exception.getMessage().contains("patient locked"));
+        }
+
+        // the statement is rolled back as a whole
+        assertEquals(3, patientDao.getAll().size());
+    }
+
     /**
      * @throws SQLException Tears down the in-memory database.
      */
@@ -0,0 +1,95 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.AsyncDao;
+import de.hitec.nhplus.datastorage.DaoExecutor;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.model.CreationData.PatientCreationData;
+import de.hitec.nhplus.model.Patient;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the <code>AsyncDao</code> and the <code>DaoExecutor</code>.
+ * <p>
+ * The results are delivered on the calling thread of the executor instead of the JavaFX application thread, so the
+ * test runs without a toolkit.
+ */
+public class AsyncDaoTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private DaoExecutor executor;
+    private AsyncDao<PatientDao, Patient, PatientCreationData> patients;
+
+    /**
+     * Creates an executor that runs two calls at once and the asynchronous patient DAO on it.
+     */
+    @Before
+    public void setUp() {
+        executor = new DaoExecutor(2, Runnable::run);
+        patients = new AsyncDao<>(new PatientDao(database.getConnection()), executor);
+    }
+
+    /**
+     * Verifies that the futures complete with the results of the DAO.
+     */
+    @Test
+    public void testCompletesWithResults() throws Exception {
+        Patient created = patients.create(TestDatabase.patient("Weber")).get(5, TimeUnit.SECONDS);
+
+        assertEquals("Weber", patients.getById(created.getId()).get(5, TimeUnit.SECONDS).orElseThrow().getSurname());
+        assertEquals(1, patients.call(PatientDao::getAllNotArchived).get(5, TimeUnit.SECONDS).size());
+    }
+
+    /**
+     * Verifies that an exception of the DAO completes the future exceptionally.
+     */
+    @Test
+    public void testCompletesExceptionally() throws Exception {
+        CompletableFuture<Object> future = executor.submit(() -> {
+            throw new SQLException("Failed");
+        });
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected the exception of the call");
+        } catch (ExecutionException exception) {
+            assertEquals("Failed", exception.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Verifies that no more calls run at once than the executor has permits.
+     */
+    @Test
+    public void testLimitsConcurrentCalls() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                return running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(maxRunning.get() <= 2);
+    }
+}
@@ -0,0 +1,362 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.ConnectionProvider;
+import de.hitec.nhplus.datastorage.DaoImp;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.model.CreationData.PatientCreationData;
+import de.hitec.nhplus.model.Exceptions.CreateException;
+import de.hitec.nhplus.model.Patient;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the generic operations of the <code>DaoImp</code>, run with the <code>PatientDao</code>.
+ */
+public class DaoImpTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private LeaseCountingProvider provider;
+    private PatientDao patientDao;
+
+    /**
+     * Creates the DAO on a provider that counts the leased read connections.
+     */
+    @Before
+    public void setUp() {
+        provider = new LeaseCountingProvider(database.getConnection());
+        patientDao = new PatientDao(provider);
+    }
+
+    /**
+     * Verifies that a stream that is read to its end gives its read connection back.
+     */
+    @Test
+    public void testConsumedStreamReleasesConnection() {
+        patientDao.createAll(List.of(TestDatabase.patient("Weber"), TestDatabase.patient("Koch")));
+
+        List<String> surnames = patientDao.stream().map(Patient::getSurname).toList();
+
+        assertEquals(List.of("Weber", "Koch"), surnames);
+        assertEquals(0, provider.leasedReadConnections);
+    }
+
+    /**
+     * Verifies that a stream that is closed before its end gives its read connection back.
+     */
+    @Test
+    public void testClosedStreamReleasesConnection() {
+        patientDao.createAll(List.of(TestDatabase.patient("Weber"), TestDatabase.patient("Koch")));
+
+        try (Stream<Patient> patients = patientDao.stream()) {
+            assertEquals("Weber", patients.findFirst().orElseThrow().getSurname());
+            assertEquals(1, provider.leasedReadConnections);
+        }
+
+        assertEquals(0, provider.leasedReadConnections);
+    }
+
+    /**
+     * Verifies that <code>createAll()</code> returns the new rows in the order of the input, with the ids and fields
+     * stored in the database, also after a deleted row left a gap in the ids.
+     */
+    @Test
+    public void testCreateAllKeepsInputOrder() {
+        Patient deleted = patientDao.create(TestDatabase.patient("Alt"));
+        patientDao.delete(deleted.getId());
+
+        List<PatientCreationData> data = patients("Weber", "Koch", "Abel");
+        List<Patient> created = patientDao.createAll(data);
+
+        assertCreated(data, created);
+        assertTrue(created.get(0).getId() > deleted.getId());
+    }
+
+    /**
+     * Verifies <code>createAll()</code> with batches of a single row.
+     */
+    @Test
+    public void testCreateAllWithSingleRowBatches() {
+        patientDao.setBatchSize(1);
+
+        List<PatientCreationData> data = patients("Weber", "Koch", "Abel");
+        List<Patient> created = patientDao.createAll(data);
+
+        assertCreated(data, created);
+    }
+
+    /**
+     * Verifies <code>createAll()</code> with a batch size that leaves a smaller last batch.
+     */
+    @Test
+    public void testCreateAllWithPartialLastBatch() {
+        patientDao.setBatchSize(2);
+
+        List<PatientCreationData> data = patients("Weber", "Koch", "Abel", "Lang", "Busch");
+        List<Patient> created = patientDao.createAll(data);
+
+        assertCreated(data, created);
+    }
+
+    /**
+     * Verifies that <code>insertAll()</code> stores all rows in the order of the input.
+     */
+    @Test
+    public void testInsertAll() {
+        patientDao.setBatchSize(2);
+
+        int inserted = patientDao.insertAll(patients("Weber", "Koch", "Abel"));
+
+        assertEquals(3, inserted);
+        assertEquals(List.of("Weber", "Koch", "Abel"), patientDao.getAll().stream().map(Patient::getSurname).toList());
+    }
+
+    /**
+     * Verifies that a row that cannot be inserted rolls back the batches that were sent before it.
+     */
+    @Test
+    public void testCreateAllRollsBackOnFailure() {
+        patientDao.setBatchSize(2);
+        List<PatientCreationData> data = new ArrayList<>(patients("Weber", "Koch"));
+        data.add(new PatientCreationData("Anna", null, LocalDate.of(1940, 1, 1), "2", "101", null));
+
+        try {
+            patientDao.createAll(data);
+            fail("Expected the failed insert to be reported");
+        } catch (CreateException exception) {
+            assertTrue(exception.getMessage().contains("NOT NULL"));
+        }
+
+        assertEquals(0, patientDao.getAll().size());
+    }
+
+    /**
+     * Verifies that a row that cannot be inserted rolls back the batches of <code>insertAll()</code> as well.
+     */
+    @Test
+    public void testInsertAllRollsBackOnFailure() {
+        patientDao.setBatchSize(2);
+        List<PatientCreationData> data = new ArrayList<>(patients("Weber", "Koch"));
+        data.add(new PatientCreationData("Anna", null, LocalDate.of(1940, 1, 1), "2", "101", null));
+
+        try {
+            patientDao.insertAll(data);
+            fail("Expected the failed insert to be reported");
+        } catch (CreateException exception) {
+            assertTrue(exception.getMessage().contains("NOT NULL"));
+        }
+
+        assertEquals(0, patientDao.getAll().size());
+    }
+
+    /**
+     * Verifies that reading all pages one after another returns every object exactly once and in the order of the ids,
+     * also across a gap left by a deleted object.
+     */
+    @Test
+    public void testPagesHaveNoGapsOrDuplicates() {
+        List<Patient> created = patientDao.createAll(patients("Weber", "Koch", "Abel", "Lang", "Busch", "Roth", "Berg"));
+        patientDao.delete(created.get(3).getId());
+
+        List<Long> pagedIds = new ArrayList<>();
+        long afterId = 0;
+        List<Patient> page;
+        while (!(page = patientDao.getPage(afterId, 2)).isEmpty()) {
+            assertTrue(page.size() <= 2);
+            page.forEach(patient -> pagedIds.add(patient.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        assertEquals(patientDao.getAll().stream().map(Patient::getId).toList(), pagedIds);
+        assertEquals(6, pagedIds.size());
+    }
+
+    /**
+     * Verifies that the pages of <code>getPageNotArchived()</code> skip archived objects without ending early.
+     */
+    @Test
+    public void testPageNotArchived() {
+        List<PatientCreationData> data = new ArrayList<>();
+        for (String surname : List.of("Weber", "Koch", "Abel", "Lang", "Busch")) {
+            data.add(TestDatabase.patient(surname));
+            data.add(new PatientCreationData("Anna", surname + "-Archiv", LocalDate.of(1940, 1, 1), "2", "101",
+                    LocalDate.of(2024, 1, 1)));
+        }
+        patientDao.createAll(data);
+
+        List<String> surnames = new ArrayList<>();
+        long afterId = 0;
+        List<Patient> page;
+        while (!(page = patientDao.getPageNotArchived(afterId, 2)).isEmpty()) {
+            page.forEach(patient -> surnames.add(patient.getSurname()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+
+        assertEquals(List.of("Weber", "Koch", "Abel", "Lang", "Busch"), surnames);
+    }
+
+    /**
+     * Verifies that <code>getByIds()</code> ignores <code>null</code> and returns duplicate ids once, in the order
+     * they were first given.
+     */
+    @Test
+    public void testGetByIdsWithNullAndDuplicates() {
+        List<Patient> created = patientDao.createAll(patients("Weber", "Koch", "Abel"));
+        long weber = created.get(0).getId();
+        long koch = created.get(1).getId();
+
+        Map<Long, Patient> found = patientDao.getByIds(Arrays.asList(koch, null, weber, koch));
+
+        assertEquals(List.of(koch, weber), new ArrayList<>(found.keySet()));
+        assertEquals("Koch", found.get(koch).getSurname());
+        assertEquals("Weber", found.get(weber).getSurname());
+    }
+
+    /**
+     * Verifies <code>getByIds()</code> with 3 and 5 ids, whose IN-lists are padded to 4 and 8 placeholders.
+     */
+    @Test
+    public void testGetByIdsWithPaddedLists() {
+        List<Patient> created = patientDao.createAll(patients("Weber", "Koch", "Abel", "Lang", "Busch"));
+
+        assertFound(created.subList(0, 3), patientDao.getByIds(ids(created.subList(0, 3))));
+        assertFound(created, patientDao.getByIds(ids(created)));
+    }
+
+    /**
+     * Verifies <code>getByIds()</code> with more ids than fit into one query, so they are read in two chunks.
+     */
+    @Test
+    public void testGetByIdsSpanningChunks() {
+        List<PatientCreationData> data = new ArrayList<>();
+        for (int i = 0; i < DaoImp.MAX_IDS_PER_QUERY + 88; i++) {
+            data.add(TestDatabase.patient("Patient " + i));
+        }
+        List<Patient> created = new ArrayList<>(patientDao.createAll(data));
+        Collections.reverse(created);
+
+        assertFound(created, patientDao.getByIds(ids(created)));
+    }
+
+    /**
+     * Verifies that <code>getByIds()</code> leaves out the ids without an object.
+     */
+    @Test
+    public void testGetByIdsLeavesOutMissingIds() {
+        List<Patient> created = patientDao.createAll(patients("Weber", "Koch", "Abel"));
+        patientDao.delete(created.get(1).getId());
+        long unknown = created.get(2).getId() + 100;
+
+        Map<Long, Patient> found = patientDao.getByIds(List.of(unknown, created.get(2).getId(), created.get(1).getId(),
+                created.get(0).getId()));
+
+        assertEquals(List.of(created.get(2).getId(), created.get(0).getId()), new ArrayList<>(found.keySet()));
+    }
+
+    /**
+     * Returns the data of patients that are not archived.
+     *
+     * @param surnames Surnames of the patients.
+     * @return The data of the patients, in the order of the surnames.
+     */
+    private static List<PatientCreationData> patients(String... surnames) {
+        return Arrays.stream(surnames).map(TestDatabase::patient).toList();
+    }
+
+    /**
+     * Asserts that the created patients match the input in order, have consecutive ids and match their rows in the
+     * database.
+     *
+     * @param data    Data the patients were created from.
+     * @param created Patients returned by the DAO.
+     */
+    private void assertCreated(List<PatientCreationData> data, List<Patient> created) {
+        assertEquals(data.size(), created.size());
+
+        for (int i = 0; i < created.size(); i++) {
+            PatientCreationData input = data.get(i);
+            Patient patient = created.get(i);
+            if (i > 0)
+                assertEquals(created.get(i - 1).getId() + 1, patient.getId());
+
+            assertEquals(input.surname(), patient.getSurname());
+            assertEquals(input.firstName(), patient.getFirstName());
+            assertEquals(input.dateOfBirth().toString(), patient.getDateOfBirth());
+            assertEquals(input.careLevel(), patient.getCareLevel());
+            assertEquals(input.roomNumber(), patient.getRoomNumber());
+
+            Patient stored = patientDao.getById(patient.getId()).orElseThrow();
+            assertEquals(patient.getSurname(), stored.getSurname());
+        }
+    }
+
+    /**
+     * Returns the ids of the given patients.
+     *
+     * @param patients The patients.
+     * @return The ids, in the order of the patients.
+     */
+    private static List<Long> ids(List<Patient> patients) {
+        return patients.stream().map(Patient::getId).toList();
+    }
+
+    /**
+     * Asserts that the found patients are exactly the expected patients, in the same order.
+     *
+     * @param expected Patients that have to be found.
+     * @param found    Patients returned by <code>getByIds()</code>.
+     */
+    private static void assertFound(List<Patient> expected, Map<Long, Patient> found) {
+        assertEquals(ids(expected), new ArrayList<>(found.keySet()));
+        for (Patient patient : expected) {
+            assertEquals(patient.getSurname(), found.get(patient.getId()).getSurname());
+        }
+    }
+
+    /**
+     * Hands out the connection of the test database and counts the read connections that are not released yet.
+     */
+    private static final class LeaseCountingProvider implements ConnectionProvider {
+        private final Connection connection;
+        private int leasedReadConnections = 0;
+
+        private LeaseCountingProvider(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Connection acquireReadConnection() {
+            this.leasedReadConnections++;
+            return this.connection;
+        }
+
+        @Override
+        public void releaseReadConnection(Connection connection) {
+            this.leasedReadConnections--;
+        }
+
+        @Override
+        public Connection acquireWriteConnection() {
+            return this.connection;
+        }
+
+        @Override
+        public void releaseWriteConnection(Connection connection) {
+        }
+    }
+}
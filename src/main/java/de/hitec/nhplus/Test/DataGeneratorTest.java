@@ -0,0 +1,83 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.SchemaMigrator;
+import de.hitec.nhplus.utils.DataGenerator;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the <code>DataGenerator</code>.
+ * <p>
+ * Verifies that the generated data set is reproducible and consistent with its settings.
+ */
+public class DataGeneratorTest {
+
+    private static final DataGenerator.Settings SETTINGS = new DataGenerator.Settings(7, 3, 12, 4, 50, 10, 20, 0.3,
+            0.25, 1.2, LocalDate.of(2024, 6, 1));
+
+    /**
+     * Verifies that the generator creates the configured number of rows.
+     */
+    @Test
+    public void testCreatesConfiguredNumberOfRows() throws SQLException {
+        try (Connection connection = generate(SETTINGS)) {
+            assertEquals(SETTINGS.treatments(), count(connection, "SELECT count(*) FROM treatment"));
+            assertEquals(3 * 12, count(connection, "SELECT count(*) FROM patient"));
+            assertEquals(3 * 4, count(connection, "SELECT count(*) FROM caregiver"));
+            assertEquals(20, count(connection, "SELECT count(*) FROM medicine"));
+        }
+    }
+
+    /**
+     * Verifies that the same settings produce the same rows and another seed produces other rows.
+     */
+    @Test
+    public void testIsReproducible() throws SQLException {
+        final String SQL = "SELECT sum(patientId * treatment_date + caregiverId * begin + medicineId * end) FROM treatment";
+
+        try (Connection first = generate(SETTINGS);
+             Connection second = generate(SETTINGS);
+             Connection other = generate(new DataGenerator.Settings(8, 3, 12, 4, 50, 10, 20, 0.3, 0.25, 1.2,
+                     SETTINGS.referenceDate()))) {
+            assertEquals(count(first, SQL), count(second, SQL));
+            assertNotEquals(count(first, SQL), count(other, SQL));
+        }
+    }
+
+    /**
+     * Verifies that the treatments of archived patients are archived with them and do not end after the patient left.
+     */
+    @Test
+    public void testArchivesTreatmentsWithTheirPatient() throws SQLException {
+        try (Connection connection = generate(SETTINGS)) {
+            assertTrue(count(connection, "SELECT count(*) FROM patient WHERE archivedOn IS NOT NULL") > 0);
+            assertEquals(0, count(connection, "SELECT count(*) FROM treatment t JOIN patient p ON p.id = t.patientId " +
+                    "WHERE t.archivedOn IS NOT p.archivedOn OR t.treatment_date > p.archivedOn"));
+        }
+    }
+
+    private static Connection generate(DataGenerator.Settings settings) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        SchemaMigrator.migrate(connection);
+        new DataGenerator(settings).generate(connection);
+        return connection;
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+}
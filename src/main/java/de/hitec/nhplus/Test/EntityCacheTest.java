@@ -0,0 +1,106 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.EntityCache;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.model.Patient;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for the <code>EntityCache</code> in front of the DAOs.
+ * <p>
+ * Verifies the LRU eviction, the counters and that writes of the DAO invalidate the cached entities.
+ */
+public class EntityCacheTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private PatientDao patientDao;
+    private EntityCache<Patient> cache;
+
+    /**
+     * Creates three patients and puts a cache for two of them in front of the DAO.
+     */
+    @Before
+    public void setUp() {
+        patientDao = new PatientDao(database.getConnection());
+        patientDao.createAll(List.of(TestDatabase.patient("Weber"), TestDatabase.patient("Koch"),
+                TestDatabase.patient("Wolf")));
+
+        cache = new EntityCache<>(2, 0);
+        patientDao.setEntityCache(cache);
+    }
+
+    /**
+     * Verifies that a second lookup is answered from the cache and counted as hit.
+     */
+    @Test
+    public void testSecondLookupIsHit() {
+        Patient first = patientDao.getById(1).orElseThrow();
+        Patient second = patientDao.getById(1).orElseThrow();
+
+        assertSame(first, second);
+        EntityCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.hits());
+        assertEquals(1, statistics.misses());
+    }
+
+    /**
+     * Verifies that the least recently used entity is evicted once the cache is full.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        patientDao.getById(1);
+        patientDao.getById(2);
+        patientDao.getById(1);
+        patientDao.getById(3);
+
+        assertEquals(1, cache.getStatistics().evictions());
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+    }
+
+    /**
+     * Verifies that <code>getByIds()</code> only reads the entities missing in the cache and caches them.
+     */
+    @Test
+    public void testGetByIdsUsesCache() {
+        Patient cached = patientDao.getById(1).orElseThrow();
+
+        var patients = patientDao.getByIds(List.of(1L, 2L));
+
+        assertEquals(2, patients.size());
+        assertSame(cached, patients.get(1L));
+        assertEquals(2, cache.getStatistics().size());
+    }
+
+    /**
+     * Verifies that update, archive and delete invalidate the cached entity, so the next lookup reads the change.
+     */
+    @Test
+    public void testWritesInvalidate() {
+        Patient patient = patientDao.getById(1).orElseThrow();
+        patient.setRoomNumber("201");
+        patientDao.update(patient);
+        Patient updated = patientDao.getById(1).orElseThrow();
+        assertNotSame(patient, updated);
+        assertEquals("201", updated.getRoomNumber());
+
+        patientDao.archive(1);
+        assertTrue(patientDao.getById(1).orElseThrow().isArchived());
+
+        patientDao.delete(1);
+        assertTrue(patientDao.getById(1).isEmpty());
+    }
+}
@@ -0,0 +1,97 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.MedicineDao;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.QueryCache;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.model.Patient;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for the <code>QueryCache</code> beneath the DAOs.
+ * <p>
+ * Verifies that list queries are answered from the cache and that a write only drops the results of the tables it
+ * changes.
+ */
+public class QueryCacheTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private PatientDao patientDao;
+    private TreatmentDao treatmentDao;
+    private MedicineDao medicineDao;
+    private QueryCache cache;
+
+    /**
+     * Creates two patients and one treatment and lets all DAOs share one cache.
+     */
+    @Before
+    public void setUp() {
+        cache = new QueryCache(16, 100);
+        patientDao = new PatientDao(database.getConnection());
+        treatmentDao = new TreatmentDao(database.getConnection());
+        medicineDao = new MedicineDao(database.getConnection());
+        patientDao.setQueryCache(cache);
+        treatmentDao.setQueryCache(cache);
+        medicineDao.setQueryCache(cache);
+
+        patientDao.createAll(List.of(TestDatabase.patient("Weber"), TestDatabase.patient("Koch")));
+        treatmentDao.create(TestDatabase.treatment(1));
+    }
+
+    /**
+     * Verifies that a repeated list query is answered from the cache.
+     */
+    @Test
+    public void testRepeatedQueryIsHit() {
+        assertEquals(2, patientDao.getAllNotArchived().size());
+        assertEquals(2, patientDao.getAllNotArchived().size());
+
+        QueryCache.Statistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.hits());
+        assertEquals(1, statistics.misses());
+    }
+
+    /**
+     * Verifies that a write drops the results of its table and keeps the results of other tables.
+     */
+    @Test
+    public void testWriteInvalidatesOnlyItsTable() {
+        patientDao.getAllNotArchived();
+        medicineDao.getAll();
+
+        Patient patient = patientDao.getAllNotArchived().get(0);
+        patient.setRoomNumber("201");
+        patientDao.update(patient);
+
+        assertEquals(1, cache.getStatistics().size());
+        assertEquals("201", patientDao.getAllNotArchived().get(0).getRoomNumber());
+        medicineDao.getAll();
+        assertEquals(2, cache.getStatistics().hits());
+    }
+
+    /**
+     * Verifies that the joined treatment details are dropped when a joined table is written, and that deleting a
+     * patient drops the treatments deleted with it.
+     */
+    @Test
+    public void testJoinedTablesInvalidate() {
+        assertEquals("Weber", treatmentDao.getAllWithDetails().get(0).getPatientSurname());
+
+        Patient patient = patientDao.getById(1).orElseThrow();
+        patient.setSurname("Schulz");
+        patientDao.update(patient);
+        assertEquals("Schulz", treatmentDao.getAllWithDetails().get(0).getPatientSurname());
+
+        assertEquals(1, treatmentDao.getAll().size());
+        patientDao.delete(1);
+        assertEquals(0, treatmentDao.getAll().size());
+    }
+}
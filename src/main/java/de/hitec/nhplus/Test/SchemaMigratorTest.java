@@ -0,0 +1,277 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.MedicineDao;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.SchemaMigrator;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the <code>SchemaMigrator</code>.
+ * <p>
+ * Verifies the versioning of the migrations and asks SQLite for the query plans of the frequent queries, to verify
+ * that they search the expected index instead of scanning the whole table.
+ */
+public class SchemaMigratorTest {
+
+    private Connection connection;
+
+    /**
+     * @throws SQLException if the in-memory database cannot be created.
+     *                      <p>
+     *                      Sets up the in-memory database and migrates it to the latest version.
+     */
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        SchemaMigrator.migrate(connection);
+    }
+
+    /**
+     * Verifies that a new database is migrated to the latest version.
+     */
+    @Test
+    public void testMigratesToLatestVersion() throws SQLException {
+        assertEquals(SchemaMigrator.getLatestVersion(), SchemaMigrator.getVersion(connection));
+    }
+
+    /**
+     * Verifies that a database created before the versioning started, which has the tables but version 0, is migrated
+     * without losing its data.
+     */
+    @Test
+    public void testMigratesUnversionedDatabase() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO user (username, password) VALUES ('test', 'secret')");
+            statement.execute("DROP INDEX idx_user_username");
+            statement.execute("PRAGMA user_version = 0");
+        }
+
+        assertEquals(SchemaMigrator.getLatestVersion(), SchemaMigrator.migrate(connection));
+        assertEquals(SchemaMigrator.getLatestVersion(), SchemaMigrator.getVersion(connection));
+        assertUsesIndex("SELECT password FROM user WHERE username = ?", "idx_user_username");
+
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT count(*) FROM user")) {
+            assertTrue(result.next());
+            assertEquals(1, result.getInt(1));
+        }
+    }
+
+    /**
+     * Verifies that dates and times stored as text by version 3 are converted to numbers and read back unchanged.
+     */
+    @Test
+    public void testConvertsTextDatesToNumbers() throws SQLException {
+        try (Connection legacy = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            SchemaMigrator.migrate(legacy, 3);
+            try (Statement statement = legacy.createStatement()) {
+                statement.execute("INSERT INTO patient VALUES (1, 'Seppl', 'Herberger', '1945-12-01', '4', '202', NULL)");
+                statement.execute("INSERT INTO treatment VALUES (7, 1, '2023-06-03', '11:00', '15:30', 'Gespräch', '', 1, 2, '2013-06-03')");
+                statement.execute("INSERT INTO medicine VALUES (2, 'Ibuprofen 200mg', 'Shelf C', '2027-01-20')");
+                statement.execute("DELETE FROM treatment WHERE id = 7");
+                statement.execute("INSERT INTO treatment VALUES (5, 1, '2023-06-03', '11:00', '15:30', 'Gespräch', '', 1, 2, '2013-06-03')");
+            }
+
+            assertEquals(1, SchemaMigrator.migrate(legacy));
+
+            try (Statement statement = legacy.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT typeof(treatment_date), typeof(begin), " +
+                         "typeof(archivedOn) FROM treatment")) {
+                assertTrue(result.next());
+                assertEquals("integer", result.getString(1));
+                assertEquals("integer", result.getString(2));
+                assertEquals("integer", result.getString(3));
+            }
+
+            var patient = new PatientDao(legacy).getAll().get(0);
+            assertEquals("1945-12-01", patient.getDateOfBirth());
+            assertFalse(patient.isArchived());
+
+            var treatment = new TreatmentDao(legacy).getAll().get(0);
+            assertEquals("2023-06-03", treatment.getDate());
+            assertEquals("11:00", treatment.getBegin());
+            assertEquals("15:30", treatment.getEnd());
+            assertTrue(treatment.isArchived());
+
+            var medicine = new MedicineDao(legacy).getAll().get(0);
+            assertEquals(LocalDate.of(2027, 1, 20), medicine.getExpirationDate());
+
+            // ids of deleted rows are not reused after the rebuild
+            assertTrue(new TreatmentDao(legacy).create(new TreatmentCreationData(1, LocalDate.of(2024, 1, 1),
+                    LocalTime.of(8, 0), LocalTime.of(9, 0), "Waschen", "", 1, 2, null)).getId() > 7);
+        }
+    }
+
+    /**
+     * Verifies that an archive date that is no date fails the conversion instead of making the patient active again.
+     */
+    @Test
+    public void testRejectsInvalidArchiveDate() throws SQLException {
+        try (Connection legacy = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            SchemaMigrator.migrate(legacy, 3);
+            try (Statement statement = legacy.createStatement()) {
+                statement.execute("INSERT INTO patient VALUES (1, 'Seppl', 'Herberger', '1945-12-01', '4', '202', '03.06.2013')");
+            }
+
+            try {
+                SchemaMigrator.migrate(legacy);
+                fail("Expected the invalid archive date to be rejected");
+            } catch (SQLException exception) {
+                assertTrue(exception.getMessage().contains("03.06.2013"));
+                assertEquals(3, SchemaMigrator.getVersion(legacy));
+            }
+        }
+    }
+
+    /**
+     * Verifies that dates stored as text by version 3 are rejected instead of read as wrong numbers.
+     */
+    @Test
+    public void testRejectsTextDatesOfUnmigratedSchema() throws SQLException {
+        try (Connection legacy = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            SchemaMigrator.migrate(legacy, 3);
+            try (Statement statement = legacy.createStatement()) {
+                statement.execute("INSERT INTO patient VALUES (1, 'Seppl', 'Herberger', '1945-12-01', '4', '202', NULL)");
+            }
+
+            try {
+                new PatientDao(legacy).getAll();
+                fail("Expected the text date to be rejected");
+            } catch (IllegalStateException exception) {
+                assertTrue(exception.getMessage().contains("1945-12-01"));
+            }
+        }
+    }
+
+    /**
+     * Verifies that a failed migration is rolled back and leaves the database at the previous version.
+     */
+    @Test
+    public void testFailedMigrationIsRolledBack() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // duplicate usernames make the unique index of version 2 fail
+            statement.execute("DROP INDEX idx_user_username");
+            statement.execute("INSERT INTO user (username, password) VALUES ('test', 'a'), ('test', 'b')");
+            statement.execute("PRAGMA user_version = 1");
+        }
+
+        try {
+            SchemaMigrator.migrate(connection);
+            fail("Expected the migration to fail on duplicate usernames");
+        } catch (SQLException exception) {
+            assertEquals(1, SchemaMigrator.getVersion(connection));
+            assertTrue(connection.getAutoCommit());
+        }
+    }
+
+    /**
+     * Verifies that the treatments of a patient are searched by the patient index.
+     */
+    @Test
+    public void testTreatmentsByPatientUseIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM treatment WHERE patientId = ?", "idx_treatment_patient_date");
+    }
+
+    /**
+     * Verifies that the archive purge finds the treatments of a caregiver by the caregiver index.
+     */
+    @Test
+    public void testTreatmentsByCaregiverUseIndex() throws SQLException {
+        assertUsesIndex("SELECT 1 FROM treatment WHERE treatment.caregiverId = ? " +
+                "AND (treatment.archivedOn IS NULL OR treatment.archivedOn >= ?)", "idx_treatment_caregiver");
+    }
+
+    /**
+     * Verifies that the login searches users by the unique username index.
+     */
+    @Test
+    public void testUserByUsernameUsesIndex() throws SQLException {
+        assertUsesIndex("SELECT password FROM user WHERE username = ?", "idx_user_username");
+    }
+
+    /**
+     * Verifies that the pages of not archived entries are read from the partial indexes.
+     */
+    @Test
+    public void testNotArchivedPagesUseIndex() throws SQLException {
+        assertUsesIndex("SELECT * FROM patient WHERE (archivedOn IS NULL) AND id > ? ORDER BY id LIMIT ?",
+                "idx_patient_not_archived");
+        assertUsesIndex("SELECT * FROM caregiver WHERE (archivedOn IS NULL) AND id > ? ORDER BY id LIMIT ?",
+                "idx_caregiver_not_archived");
+        assertUsesIndex("SELECT * FROM treatment t WHERE t.id > ? AND t.archivedOn IS NULL ORDER BY t.id LIMIT ?",
+                "idx_treatment_not_archived");
+    }
+
+    /**
+     * Verifies that the archive purge searches old archived treatments by the partial archive index.
+     */
+    @Test
+    public void testArchivedTreatmentsUseIndex() throws SQLException {
+        assertUsesIndex("DELETE FROM treatment WHERE archivedOn IS NOT NULL AND archivedOn < ?",
+                "idx_treatment_archived");
+    }
+
+    /**
+     * Verifies that migrating an up to date database does nothing.
+     */
+    @Test
+    public void testMigrateIsIdempotent() throws SQLException {
+        final int expectedIndexes = 10;
+
+        assertEquals(0, SchemaMigrator.migrate(connection));
+
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(
+                     "SELECT count(*) FROM sqlite_master WHERE type = 'index' AND name LIKE 'idx_%'")) {
+            assertTrue(result.next());
+            assertEquals(expectedIndexes, result.getInt(1));
+        }
+    }
+
+    /**
+     * @throws SQLException Tears down the in-memory database.
+     */
+    @After
+    public void tearDown() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Asserts that the query plan of the given SQL searches the given index.
+     *
+     * @param sql   SQL of the query, placeholders do not need to be bound.
+     * @param index Name of the index the query is expected to use.
+     * @throws SQLException If the query plan could not be read.
+     */
+    private void assertUsesIndex(String sql, String index) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (result.next()) {
+                plan.append(result.getString("detail")).append('\n');
+            }
+        }
+
+        assertTrue("Expected " + sql + " to use " + index + ", but the plan is:\n" + plan,
+                plan.toString().contains("USING INDEX " + index) || plan.toString().contains("USING COVERING INDEX " + index));
+    }
+}
@@ -0,0 +1,83 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.SchemaMigrator;
+import de.hitec.nhplus.model.CreationData.PatientCreationData;
+import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
+import org.junit.rules.ExternalResource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fixture of the tests that run the DAOs against a database. Used as JUnit rule, it opens an in-memory database with
+ * the latest schema before every test and closes it afterwards, so the tests only create the rows they need:
+ * <pre>
+ * &#64;Rule
+ * public final TestDatabase database = new TestDatabase();
+ * </pre>
+ */
+public class TestDatabase extends ExternalResource {
+
+    private Connection connection;
+
+    /**
+     * Opens the in-memory database and migrates it to the latest schema. Like the connections of the application, the
+     * connection enforces foreign keys, so deleting a patient cascades to its treatments.
+     *
+     * @throws SQLException if the in-memory database cannot be created.
+     */
+    @Override
+    protected void before() throws SQLException {
+        this.connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        SchemaMigrator.migrate(this.connection);
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("PRAGMA foreign_keys = ON");
+        }
+    }
+
+    /**
+     * Closes the in-memory database, which drops it.
+     */
+    @Override
+    protected void after() {
+        try {
+            this.connection.close();
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Returns the connection to the in-memory database of the running test.
+     *
+     * @return The connection.
+     */
+    public Connection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Returns the data of a patient that is not archived.
+     *
+     * @param surname Surname of the patient, the other fields are the same for all patients.
+     * @return The data of the patient.
+     */
+    public static PatientCreationData patient(String surname) {
+        return new PatientCreationData("Anna", surname, LocalDate.of(1940, 1, 1), "2", "101", null);
+    }
+
+    /**
+     * Returns the data of a treatment that is not archived and has no caregiver and medicine.
+     *
+     * @param patientId Id of the treated patient.
+     * @return The data of the treatment.
+     */
+    public static TreatmentCreationData treatment(long patientId) {
+        return new TreatmentCreationData(patientId, LocalDate.of(2024, 5, 1), LocalTime.of(9, 0),
+                LocalTime.of(9, 30), "Verband", "", 0, 0, null);
+    }
+}
@@ -0,0 +1,134 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.CaregiverDao;
+import de.hitec.nhplus.datastorage.MedicineDao;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.model.Caregiver;
+import de.hitec.nhplus.model.CreationData.CaregiverCreationData;
+import de.hitec.nhplus.model.CreationData.MedicineCreationData;
+import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
+import de.hitec.nhplus.model.Medicine;
+import de.hitec.nhplus.model.Patient;
+import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.TreatmentDetails;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test class for the joined read model of the <code>TreatmentDao</code>.
+ */
+public class TreatmentDaoTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private PatientDao patientDao;
+    private TreatmentDao treatmentDao;
+
+    /**
+     * Creates the DAOs on the test database.
+     */
+    @Before
+    public void setUp() {
+        patientDao = new PatientDao(database.getConnection());
+        treatmentDao = new TreatmentDao(database.getConnection());
+    }
+
+    /**
+     * Verifies that the pages of <code>getPageWithDetails()</code> filtered by a patient only hold the treatments of
+     * that patient, without gaps or duplicates, and skip the archived treatments unless they are included.
+     */
+    @Test
+    public void testPageWithDetailsByPid() {
+        Patient weber = patientDao.create(TestDatabase.patient("Weber"));
+        Patient koch = patientDao.create(TestDatabase.patient("Koch"));
+
+        List<TreatmentCreationData> data = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            data.add(TestDatabase.treatment(weber.getId()));
+            data.add(TestDatabase.treatment(koch.getId()));
+        }
+        data.add(new TreatmentCreationData(weber.getId(), LocalDate.of(2023, 5, 1), LocalTime.of(9, 0),
+                LocalTime.of(9, 30), "Verband", "", 0, 0, LocalDate.of(2024, 1, 1)));
+        List<Treatment> created = treatmentDao.createAll(data);
+
+        List<Long> expectedIds = created.stream()
+                .filter(treatment -> treatment.getPid() == weber.getId() && !treatment.isArchived())
+                .map(Treatment::getId)
+                .toList();
+        assertEquals(expectedIds, readAllPages(weber.getId(), false));
+
+        List<Long> expectedWithArchived = created.stream()
+                .filter(treatment -> treatment.getPid() == weber.getId())
+                .map(Treatment::getId)
+                .toList();
+        assertEquals(expectedWithArchived, readAllPages(weber.getId(), true));
+
+        for (TreatmentDetails details : treatmentDao.getPageWithDetails(weber.getId(), true, 0, 10)) {
+            assertEquals("Weber", details.getPatientSurname());
+        }
+    }
+
+    /**
+     * Verifies that the details hold the names of the referenced patient, caregiver and medicine, and
+     * <code>null</code> for references without a row.
+     */
+    @Test
+    public void testAllWithDetails() {
+        Patient patient = patientDao.create(TestDatabase.patient("Weber"));
+        Caregiver caregiver = new CaregiverDao(database.getConnection())
+                .create(new CaregiverCreationData("Jonas", "Koch", "0151 123456", null));
+        Medicine medicine = new MedicineDao(database.getConnection())
+                .create(new MedicineCreationData("Ibuprofen", "Schrank 1", LocalDate.of(2030, 1, 1)));
+
+        Treatment withReferences = treatmentDao.create(new TreatmentCreationData(patient.getId(),
+                LocalDate.of(2024, 5, 1), LocalTime.of(9, 0), LocalTime.of(9, 30), "Verband", "",
+                caregiver.getId(), medicine.getId(), null));
+        Treatment withoutReferences = treatmentDao.create(TestDatabase.treatment(patient.getId()));
+
+        List<TreatmentDetails> details = treatmentDao.getAllWithDetails();
+
+        assertEquals(2, details.size());
+        TreatmentDetails first = details.get(0);
+        assertEquals(withReferences.getId(), first.getId());
+        assertEquals("Weber", first.getPatientSurname());
+        assertEquals("Anna", first.getPatientFirstName());
+        assertEquals("2", first.getPatientCareLevel());
+        assertEquals("Koch Jonas", first.getCaregiverName());
+        assertEquals("Ibuprofen", first.getMedicineName());
+
+        TreatmentDetails second = details.get(1);
+        assertEquals(withoutReferences.getId(), second.getId());
+        assertEquals("Weber", second.getPatientSurname());
+        assertNull(second.getCaregiverName());
+        assertNull(second.getMedicineName());
+    }
+
+    /**
+     * Reads all pages of <code>getPageWithDetails()</code> with two treatments per page.
+     *
+     * @param pid             Patient id the treatments reference.
+     * @param includeArchived Whether archived treatments are part of the pages.
+     * @return Ids of the treatments on all pages, in order.
+     */
+    private List<Long> readAllPages(long pid, boolean includeArchived) {
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        List<TreatmentDetails> page;
+        while (!(page = treatmentDao.getPageWithDetails(pid, includeArchived, afterId, 2)).isEmpty()) {
+            page.forEach(details -> ids.add(details.getId()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,112 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.DaoFactory;
+import de.hitec.nhplus.datastorage.EntityCache;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.model.Patient;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static de.hitec.nhplus.Test.TestDatabase.patient;
+import static de.hitec.nhplus.Test.TestDatabase.treatment;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for the units of work of the <code>DaoFactory</code>.
+ * <p>
+ * Verifies that the DAO calls of a unit of work are committed or rolled back together and that nested units roll back
+ * only their own changes.
+ */
+public class UnitOfWorkTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private Connection connection;
+    private PatientDao patientDao;
+    private TreatmentDao treatmentDao;
+
+    /**
+     * Creates the DAOs on the connection the units of work run on.
+     */
+    @Before
+    public void setUp() {
+        connection = database.getConnection();
+
+        patientDao = new PatientDao(connection);
+        treatmentDao = new TreatmentDao(connection);
+    }
+
+    /**
+     * Verifies that the changes of a unit of work are visible inside it and committed at its end.
+     */
+    @Test
+    public void testCommitsAllCalls() throws SQLException {
+        long treatmentId = DaoFactory.inTransaction(connection, () -> {
+            Patient patient = patientDao.create(patient("Weber"));
+            assertFalse(connection.getAutoCommit());
+            return treatmentDao.create(treatment(patient.getId())).getId();
+        });
+
+        assertTrue(connection.getAutoCommit());
+        assertEquals(1, patientDao.getAll().size());
+        assertTrue(treatmentDao.getById(treatmentId).isPresent());
+    }
+
+    /**
+     * Verifies that an exception rolls back all calls of the unit of work and the entity cache does not keep the
+     * rolled back change.
+     */
+    @Test
+    public void testRollsBackOnException() {
+        long patientId = patientDao.create(patient("Weber")).getId();
+        patientDao.setEntityCache(new EntityCache<>(10, 0));
+        patientDao.getById(patientId);
+
+        try {
+            DaoFactory.inTransaction(connection, () -> {
+                Patient patient = patientDao.getById(patientId).orElseThrow();
+                patient.setSurname("Schulz");
+                patientDao.update(patient);
+                treatmentDao.create(treatment(patientId));
+                assertEquals("Schulz", patientDao.getById(patientId).orElseThrow().getSurname());
+                throw new SQLException("Abort");
+            });
+            fail("Expected the exception of the work");
+        } catch (SQLException exception) {
+            assertEquals("Abort", exception.getMessage());
+        }
+
+        assertEquals("Weber", patientDao.getById(patientId).orElseThrow().getSurname());
+        assertEquals(0, treatmentDao.getAll().size());
+    }
+
+    /**
+     * Verifies that a failing nested unit of work only rolls back its own changes.
+     */
+    @Test
+    public void testNestedUnitRollsBackToSavepoint() throws SQLException {
+        DaoFactory.inTransaction(connection, () -> {
+            patientDao.create(patient("Weber"));
+            try {
+                DaoFactory.inTransaction(connection, () -> {
+                    patientDao.create(patient("Koch"));
+                    throw new IllegalStateException("Abort nested");
+                });
+            } catch (IllegalStateException exception) {
+                assertEquals(1, patientDao.getAll().size());
+            }
+            return patientDao.create(patient("Wolf"));
+        });
+
+        assertEquals(2, patientDao.getAll().size());
+    }
+}
@@ -0,0 +1,45 @@
+package de.hitec.nhplus.Test;
+
+import de.hitec.nhplus.datastorage.UserDao;
+import de.hitec.nhplus.model.CreationData.UserCreationData;
+import de.hitec.nhplus.model.User;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for the <code>UserDao</code>.
+ */
+public class UserDaoTest {
+
+    @Rule
+    public final TestDatabase database = new TestDatabase();
+
+    private UserDao userDao;
+
+    /**
+     * Creates the DAO on the in-memory database.
+     */
+    @Before
+    public void setUp() {
+        userDao = new UserDao(database.getConnection());
+    }
+
+    /**
+     * Verifies that an update writes the username and the password.
+     */
+    @Test
+    public void testUpdate() {
+        User user = userDao.create(new UserCreationData("Luca", "secret"));
+        user.setUsername("Leon");
+        user.setPassword("changed");
+
+        userDao.update(user);
+
+        User updated = userDao.getById(user.getId()).orElseThrow();
+        assertEquals("Leon", updated.getUsername());
+        assertEquals("changed", updated.getPassword());
+    }
+}
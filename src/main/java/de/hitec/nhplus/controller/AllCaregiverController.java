@@ -20,7 +20,7 @@ import java.util.function.BiConsumer;
  * The <code>AllCaregiverController</code> contains the entire logic of the caregiver view.
  * It determines which data is displayed and how to react to events.
  */
-public class AllCaregiverController {
+public class AllCaregiverController implements ViewController {
 
     @FXML
     private TableView<Caregiver> tableView;
@@ -50,12 +50,14 @@ public class AllCaregiverController {
 
     private final ObservableList<Caregiver> caregivers = FXCollections.observableArrayList();
     private CaregiverDao caregiverDao;
+    private TablePager<Caregiver> pager;
 
     /**
      * Initializes the controller class. It gets all caregivers from the database and displays them in the table view.
      */
     public void initialize() {
         caregiverDao = DaoFactory.getDaoFactory().createCaregiverDAO();
+        this.pager = new TablePager<>(this.tableView, this.caregivers);
 
         this.readAllAndShowInTableView();
 
@@ -171,9 +173,9 @@ public class AllCaregiverController {
         String firstName = this.textFieldFirstName.getText();
         String surname = this.textFieldSurname.getText();
         String phoneNumber = this.textFieldPhoneNumber.getText();
-        this.caregiverDao.create(new CaregiverCreationData(firstName, surname, phoneNumber, null));
+        var caregiver = this.caregiverDao.create(new CaregiverCreationData(firstName, surname, phoneNumber, null));
 
-        this.readAllAndShowInTableView();
+        this.pager.add(caregiver);
         this.clearTextFields();
     }
 
@@ -207,16 +209,22 @@ public class AllCaregiverController {
     }
 
     /**
-     * Reloads all caregivers to the table by clearing the list of all caregivers and filling it again by all persisted
-     * caregivers, delivered by {@link CaregiverDao}.
+     * Cancels the load of the caregivers that is still running.
      */
-    private void readAllAndShowInTableView() {
-        this.caregivers.clear();
+    @Override
+    public void dispose() {
+        this.pager.dispose();
+    }
 
+    /**
+     * Reloads the caregivers in the table by clearing the list of all caregivers and loading the first page of
+     * persisted caregivers, delivered by {@link CaregiverDao}. Further pages are loaded while scrolling.
+     */
+    private void readAllAndShowInTableView() {
         if (this.checkBoxShowArchived.isSelected())
-            this.caregivers.addAll(this.caregiverDao.getAll());
+            this.pager.reload(this.caregiverDao::getPage);
 
         else
-            this.caregivers.addAll(this.caregiverDao.getAllNotArchived());
+            this.pager.reload(this.caregiverDao::getPageNotArchived);
     }
 }
@@ -20,7 +20,7 @@ import java.time.LocalDate;
 /**
  * The <code>AllMedicineController</code> contains the entire logic of the medicine view. It determines which data is displayed and how to react to events.
  */
-public class AllMedicineController {
+public class AllMedicineController implements ViewController {
 
     @FXML
     private TableView<Medicine> tableView;
@@ -54,11 +54,15 @@ public class AllMedicineController {
 
     private final ObservableList<Medicine> medicines = FXCollections.observableArrayList();
     private MedicineDao dao;
+    private TableLoader<Medicine> tableLoader;
 
     /**
-     * Initializes the controller class. It gets all medicines from the database and displays them in the table view.
+     * Initializes the controller class. It loads all medicines from the database in the background and displays them
+     * in the table view.
      */
     public void initialize() {
+        this.dao = DaoFactory.getDaoFactory().createMedicineDAO();
+        this.tableLoader = new TableLoader<>(this.tableView, this.medicines);
         loadMedicines();
 
         this.columnId.setCellValueFactory(new PropertyValueFactory<>("id"));
@@ -109,17 +113,19 @@ public class AllMedicineController {
     }
 
     /**
-     * Reloads all medicines to the table by clearing the list of all medicines and filling it again by all persisted
-     * medicines, delivered by {@link MedicineDao}.
+     * Cancels the load of the medicines that is still running.
+     */
+    @Override
+    public void dispose() {
+        this.tableLoader.dispose();
+    }
+
+    /**
+     * Reloads all medicines to the table by clearing the list of all medicines and filling it again in the background
+     * by all persisted medicines, delivered by {@link MedicineDao}.
      */
     private void loadMedicines() {
-        this.medicines.clear();
-        this.dao = DaoFactory.getDaoFactory().createMedicineDAO();
-        try {
-            this.medicines.addAll(this.dao.getAll());
-        } catch (Exception exception) {
-            exception.printStackTrace();
-        }
+        this.tableLoader.load(this.dao::getAll);
     }
 
     /**
@@ -21,7 +21,7 @@ import java.util.function.BiConsumer;
 /**
  * The <code>AllPatientController</code> contains the entire logic of the patient view. It determines which data is displayed and how to react to events.
  */
-public class AllPatientController {
+public class AllPatientController implements ViewController {
 
     @FXML
     private TableView<Patient> tableView;
@@ -70,6 +70,7 @@ public class AllPatientController {
 
     private final ObservableList<Patient> patients = FXCollections.observableArrayList();
     private PatientDao patientDao;
+    private TablePager<Patient> pager;
 
     /**
      * When <code>initialize()</code> gets called, all fields are already initialized. For example from the FXMLLoader
@@ -78,6 +79,7 @@ public class AllPatientController {
      */
     public void initialize() {
         patientDao = DaoFactory.getDaoFactory().createPatientDAO();
+        this.pager = new TablePager<>(this.tableView, this.patients);
 
         this.readAllAndShowInTableView();
 
@@ -194,17 +196,23 @@ public class AllPatientController {
     }
 
     /**
-     * Reloads all patients to the table by clearing the list of all patients and filling it again by all persisted
-     * patients, delivered by {@link PatientDao}.
+     * Cancels the load of the patients that is still running.
      */
-    private void readAllAndShowInTableView() {
-        this.patients.clear();
+    @Override
+    public void dispose() {
+        this.pager.dispose();
+    }
 
+    /**
+     * Reloads the patients in the table by clearing the list of all patients and loading the first page of persisted
+     * patients, delivered by {@link PatientDao}. Further pages are loaded while scrolling.
+     */
+    private void readAllAndShowInTableView() {
         if (this.checkBoxShowArchived.isSelected())
-            this.patients.addAll(this.patientDao.getAll());
+            this.pager.reload(this.patientDao::getPage);
 
         else
-            this.patients.addAll(this.patientDao.getAllNotArchived());
+            this.pager.reload(this.patientDao::getPageNotArchived);
     }
 
     /**
@@ -245,7 +253,7 @@ public class AllPatientController {
         var data = new PatientCreationData(firstName, surname, birthDate, careLevel, roomNumber, null);
         Patient patient = this.patientDao.create(data);
 
-        patients.add(patient);
+        this.pager.add(patient);
 
         clearTextfields();
     }
@@ -3,7 +3,6 @@ package de.hitec.nhplus.controller;
 import de.hitec.nhplus.Main;
 import de.hitec.nhplus.datastorage.*;
 import de.hitec.nhplus.model.Caregiver;
-import de.hitec.nhplus.model.Entity;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import de.hitec.nhplus.datastorage.*;
@@ -19,42 +18,41 @@ import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
 
 /**
  * The <code>AllTreatmentController</code> contains the entire logic of the treatment view. It determines which data is displayed and how to react to events.
  */
-public class AllTreatmentController {
+public class AllTreatmentController implements ViewController {
 
     @FXML
-    private TableView<Treatment> tableView;
+    private TableView<TreatmentDetails> tableView;
 
     @FXML
-    private TableColumn<Treatment, Integer> columnId;
+    private TableColumn<TreatmentDetails, Integer> columnId;
 
     @FXML
-    private TableColumn<Treatment, Long> columnPatient;
+    private TableColumn<TreatmentDetails, String> columnPatient;
 
     @FXML
-    private TableColumn<Treatment, String> columnDate;
+    private TableColumn<TreatmentDetails, String> columnDate;
 
     @FXML
-    private TableColumn<Treatment, String> columnBegin;
+    private TableColumn<TreatmentDetails, String> columnBegin;
 
     @FXML
-    private TableColumn<Treatment, String> columnEnd;
+    private TableColumn<TreatmentDetails, String> columnEnd;
 
     @FXML
-    private TableColumn<Treatment, String> columnDescription;
+    private TableColumn<TreatmentDetails, String> columnDescription;
 
     @FXML
-    private TableColumn<Treatment, Long> columnCaregiver;
+    private TableColumn<TreatmentDetails, String> columnCaregiver;
 
     @FXML
-    private TableColumn<Medicine, Long> columnMedicine;
+    private TableColumn<TreatmentDetails, String> columnMedicine;
 
     @FXML
     private ComboBox<String> comboBoxPatientSelection;
@@ -67,23 +65,24 @@ public class AllTreatmentController {
     @FXML
     private Button buttonDelete;
 
-    private final ObservableList<Treatment> treatments = FXCollections.observableArrayList();
+    private final ObservableList<TreatmentDetails> treatments = FXCollections.observableArrayList();
 
-    private ArrayList<Patient> patientList;
+    private List<Patient> patientList = new ArrayList<>();
 
     private TreatmentDao treatmentDao;
-    private CaregiverDao caregiverDao;
     private PatientDao patientDao;
-    private MedicineDao medicineDao;
+    private LoadGroup loads;
+    private TablePager<TreatmentDetails> pager;
 
     /**
-     * Initializes the controller class. It gets all treatments from the database and displays them in the table view.
+     * Initializes the controller class. The treatments and the patients for the combo box are loaded at the same time
+     * in the background, each is shown as soon as it arrives. The loads are cancelled once the view is disposed.
      */
     public void initialize() {
         treatmentDao = DaoFactory.getDaoFactory().createTreatmentDao();
-        caregiverDao = DaoFactory.getDaoFactory().createCaregiverDAO();
         patientDao = DaoFactory.getDaoFactory().createPatientDAO();
-        medicineDao = DaoFactory.getDaoFactory().createMedicineDAO();
+        loads = new LoadGroup();
+        pager = new TablePager<>(this.tableView, this.treatments);
 
         readAllAndShowInTableView();
         patientSelection.add("alle");
@@ -91,44 +90,26 @@ public class AllTreatmentController {
         comboBoxPatientSelection.getSelectionModel().select(0);
 
         this.columnId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        this.columnPatient.setCellValueFactory(new PropertyValueFactory<>("pid"));
-        this.columnPatient.setCellFactory(col -> new TableCell<>() {
-            @Override
-            public void updateItem(Long item, boolean empty) {
-                super.updateItem(item, empty);
-                setText(getDisplayText(item, empty, patientDao, Patient::getFullName));
-            }
-        });
+        // the names are joined into the rows, rendering a cell never queries the database
+        this.columnPatient.setCellValueFactory(new PropertyValueFactory<>("patientName"));
+        this.columnPatient.setCellFactory(col -> createNameCell());
 
         this.columnDate.setCellValueFactory(new PropertyValueFactory<>("date"));
         this.columnBegin.setCellValueFactory(new PropertyValueFactory<>("begin"));
         this.columnEnd.setCellValueFactory(new PropertyValueFactory<>("end"));
         this.columnDescription.setCellValueFactory(new PropertyValueFactory<>("description"));
 
-        this.columnCaregiver.setCellValueFactory(new PropertyValueFactory<>("cid"));
-        this.columnCaregiver.setCellFactory(col -> new TableCell<>() {
-            @Override
-            public void updateItem(Long item, boolean empty) {
-                super.updateItem(item, empty);
-                setText(getDisplayText(item, empty, caregiverDao, Caregiver::getFullName));
-                setText(getDisplayText(item, empty, caregiverDao, Caregiver::getFullName));
-            }
-        });
+        this.columnCaregiver.setCellValueFactory(new PropertyValueFactory<>("caregiverName"));
+        this.columnCaregiver.setCellFactory(col -> createNameCell());
 
-        this.columnMedicine.setCellValueFactory(new PropertyValueFactory<>("mid"));
-        this.columnMedicine.setCellFactory(col -> new TableCell<>() {
-            @Override
-            protected void updateItem(Long item, boolean empty) {
-                super.updateItem(item, empty);
-                setText(getDisplayText(item, empty, medicineDao, Medicine::getName));
-            }
-        });
+        this.columnMedicine.setCellValueFactory(new PropertyValueFactory<>("medicineName"));
+        this.columnMedicine.setCellFactory(col -> createNameCell());
 
         this.tableView.setItems(this.treatments);
 
         this.tableView.setRowFactory(tv -> new TableRow<>() {
             @Override
-            protected void updateItem(Treatment treatment, boolean empty) {
+            protected void updateItem(TreatmentDetails treatment, boolean empty) {
                 super.updateItem(treatment, empty);
                 if (treatment == null || empty) {
                     setStyle("");
@@ -141,9 +122,9 @@ public class AllTreatmentController {
 
         // Disabling the button to delete treatments as long, as no treatment was selected.
         this.buttonDelete.setDisable(true);
-        this.tableView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<Treatment>() {
+        this.tableView.getSelectionModel().selectedItemProperty().addListener(new ChangeListener<TreatmentDetails>() {
             @Override
-            public void changed(ObservableValue<? extends Treatment> observableValue, Treatment treatment, Treatment newTreatment) {
+            public void changed(ObservableValue<? extends TreatmentDetails> observableValue, TreatmentDetails treatment, TreatmentDetails newTreatment) {
                 AllTreatmentController.this.buttonDelete.setDisable(newTreatment == null);
                 if (newTreatment == null)
                     return;
@@ -154,60 +135,55 @@ public class AllTreatmentController {
 
         this.createComboBoxData();
 
-        this.checkBoxShowArchived.selectedProperty().addListener((observableValue, oldValue, newValue) -> {
-            // filter treatments based on patient selection
-            var filteredTreatments = getTreatments();
-            var patient = searchInList(comboBoxPatientSelection.getSelectionModel().getSelectedItem());
-
-            if (patient != null) {
-                filteredTreatments.removeIf(treatment -> treatment.getPid() != patient.getId());
-            }
+        // keep the patient selection, only reload with or without archived treatments
+        this.checkBoxShowArchived.selectedProperty().addListener((observableValue, oldValue, newValue) -> this.handleComboBox());
+    }
 
-            this.treatments.clear();
-            this.treatments.addAll(filteredTreatments);
-        });
+    /**
+     * Cancels the loads of the treatments and the patients that are still running.
+     */
+    @Override
+    public void dispose() {
+        this.pager.dispose();
+        this.loads.cancel();
     }
 
-    // todo: move to utils and reuse
     /**
-     * Returns the display text of an entity. If the entity is empty, it returns an empty string. Otherwise, it returns the result of the function
-     * <code>valueFunction</code> applied to the entity.
+     * Creates a cell showing a name of the treatment details. Names of missing entities are shown as " - ".
      *
-     * @param item           The item to get the display text for.
-     * @param empty          Whether the item is empty.
-     * @param dao            The dao to get the entity from.
-     * @param valueFunction  The function to apply to the entity.
-     * @param <T>            The type of the entity.
-     * @return The display text of the entity.
+     * @return The cell.
      */
-    private <T extends Entity> String getDisplayText(Long item, boolean empty, Dao<T, ?> dao, Function<T, String> valueFunction) {
-        if (empty) return "";
-        return Optional.ofNullable(item)
-                .flatMap(dao::getById)
-                .map(valueFunction)
-                .orElse(" - ");
+    private TableCell<TreatmentDetails, String> createNameCell() {
+        return new TableCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? "" : Optional.ofNullable(item).orElse(" - "));
+            }
+        };
     }
 
     /**
-     * Reads all treatments from the database and shows them in the table view.
+     * Resets the patient selection and shows the first page of all treatments in the table view. Further pages are
+     * loaded while scrolling.
      */
     public void readAllAndShowInTableView() {
-        this.treatments.clear();
         comboBoxPatientSelection.getSelectionModel().select(0);
 
-        this.treatments.addAll(getTreatments());
+        this.pager.reload(getPageLoader(null));
     }
 
     /**
-     * Creates a list of all patients that are not archived.
-     * And adds them to the combo box.
+     * Loads all patients that are not archived in the background.
+     * And adds them to the combo box once they arrive.
      */
     private void createComboBoxData() {
-        patientList = patientDao.getAllNotArchived();
-
-        for (Patient patient : patientList) {
-            this.patientSelection.add(patient.getSurname());
-        }
+        this.loads.load(patientDao::getAllNotArchived, patients -> {
+            this.patientList = patients;
+            for (Patient patient : patients) {
+                this.patientSelection.add(patient.getSurname());
+            }
+        });
     }
 
     /**
@@ -218,15 +194,17 @@ public class AllTreatmentController {
     @FXML
     public void handleComboBox() {
         String selectedPatient = this.comboBoxPatientSelection.getSelectionModel().getSelectedItem();
-        this.treatments.clear();
 
         if (selectedPatient.equals("alle")) {
-            this.treatments.addAll(getTreatments());
+            this.pager.reload(getPageLoader(null));
+            return;
         }
 
         Patient patient = searchInList(selectedPatient);
         if (patient != null) {
-            this.treatments.addAll(getTreatmentsByPatient(patient));
+            this.pager.reload(getPageLoader(patient));
+        } else {
+            this.treatments.clear();
         }
     }
 
@@ -295,7 +273,7 @@ public class AllTreatmentController {
         tableView.setOnMouseClicked(event -> {
             if (event.getClickCount() == 2 && (tableView.getSelectionModel().getSelectedItem() != null)) {
                 int index = this.tableView.getSelectionModel().getSelectedIndex();
-                Treatment treatment = this.treatments.get(index);
+                TreatmentDetails treatment = this.treatments.get(index);
                 treatmentWindow(treatment);
             }
         });
@@ -331,7 +309,7 @@ public class AllTreatmentController {
      *
      * @param treatment The treatment for which the treatment window should be opened.
      */
-    public void treatmentWindow(Treatment treatment) {
+    public void treatmentWindow(TreatmentDetails treatment) {
         try {
             FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/TreatmentView.fxml"));
             AnchorPane pane = loader.load();
@@ -351,39 +329,16 @@ public class AllTreatmentController {
     }
 
     /**
-     * Helper to retrieve all treatments from the database.
-     *
-     * @return All treatments from the database.
-     */
-    private ArrayList<Treatment> getTreatments() {
-        ArrayList<Treatment> treatments = new ArrayList<>();
-
-        if (checkBoxShowArchived.isSelected())
-            treatments.addAll(treatmentDao.getAll());
-        else
-            treatments.addAll(treatmentDao.getAllNotArchived());
-
-        return treatments;
-    }
-
-    /**
-     * Helper to retrieve all treatments of a patient from the database.
+     * Helper to choose how the pages of treatments are read, depending on the selected patient and whether archived
+     * treatments are shown.
      *
-     * @param patient The patient for which the treatments should be retrieved.
-     * @return All treatments of the patient from the database.
+     * @param patient The selected patient, <code>null</code> to show the treatments of all patients.
+     * @return Loader of the pages of treatments.
      */
-    private ArrayList<Treatment> getTreatmentsByPatient(Patient patient) {
-        ArrayList<Treatment> treatments = new ArrayList<>();
-
-        try {
-            treatments.addAll(treatmentDao.readTreatmentsByPid(patient.getId()));
-        } catch (SQLException exception) {
-            exception.printStackTrace();
-        }
-
-        if (!checkBoxShowArchived.isSelected())
-            treatments.removeIf(Treatment::isArchived);
+    private TablePager.PageLoader<TreatmentDetails> getPageLoader(Patient patient) {
+        boolean showArchived = checkBoxShowArchived.isSelected();
+        Long pid = patient == null ? null : patient.getId();
 
-        return treatments;
+        return (afterId, limit) -> treatmentDao.getPageWithDetails(pid, showArchived, afterId, limit);
     }
 }
@@ -0,0 +1,100 @@
+package de.hitec.nhplus.controller;
+
+import de.hitec.nhplus.datastorage.DaoExecutor;
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * The <code>LoadGroup</code> loads the independent data sets of a view at the same time, each on the
+ * {@link DaoExecutor}. Every data set is shown as soon as it arrives, so the view is complete after the slowest query
+ * instead of after all queries one after another.
+ * <p>
+ * The loads belong to the view: once its window is closed or the view is disposed, all loads that are still running
+ * are cancelled and their results are dropped. The group is used on the JavaFX application thread only.
+ * </p>
+ */
+public class LoadGroup {
+
+    private final DaoExecutor executor;
+    private final List<CompletableFuture<?>> loads = new ArrayList<>();
+    private boolean cancelled = false;
+
+    /**
+     * Creates a group that loads on the executor of the application.
+     */
+    public LoadGroup() {
+        this(DaoExecutor.getInstance());
+    }
+
+    /**
+     * Creates a group that loads on the given executor.
+     *
+     * @param executor Executor to run the loads on.
+     */
+    public LoadGroup(DaoExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Loads a data set in the background and passes it to the given consumer on the JavaFX application thread.
+     * Failures are reported on the console, the consumer is not called then.
+     *
+     * @param call     Reads the data set, for example a DAO method reference.
+     * @param onLoaded Shows the data set in the view.
+     * @param <R>      Type of the data set.
+     * @return Future of the data set. It is cancelled if the group is cancelled before the data set arrives.
+     */
+    public <R> CompletableFuture<R> load(Callable<R> call, Consumer<? super R> onLoaded) {
+        if (this.cancelled)
+            return CompletableFuture.failedFuture(new CancellationException("The view is closed"));
+
+        CompletableFuture<R> future = this.executor.submit(call);
+        this.loads.add(future);
+        future.whenComplete((result, exception) -> {
+            this.loads.remove(future);
+            if (exception == null) {
+                onLoaded.accept(result);
+            } else if (!(exception instanceof CancellationException)) {
+                (exception instanceof CompletionException ? exception.getCause() : exception).printStackTrace();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cancels all running loads. Later loads are not started anymore.
+     */
+    public void cancel() {
+        this.cancelled = true;
+        for (CompletableFuture<?> load : List.copyOf(this.loads)) {
+            load.cancel(true);
+        }
+        this.loads.clear();
+    }
+
+    /**
+     * Cancels the loads once the given window is closed.
+     *
+     * @param window Window of the view.
+     */
+    public void cancelWhenClosed(Window window) {
+        window.addEventHandler(WindowEvent.WINDOW_HIDDEN, event -> this.cancel());
+    }
+
+    /**
+     * Returns whether the group was cancelled.
+     *
+     * @return <code>true</code> if the loads were cancelled, otherwise <code>false</code>.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+}
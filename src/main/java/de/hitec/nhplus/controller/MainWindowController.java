@@ -1,9 +1,13 @@
 package de.hitec.nhplus.controller;
 
 import de.hitec.nhplus.Main;
+import de.hitec.nhplus.Services.ArchiveScheduler;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 
 import java.io.IOException;
@@ -16,17 +20,27 @@ public class MainWindowController {
     @FXML
     private BorderPane mainBorderPane;
 
+    @FXML
+    private Label archiveStatusLabel;
+
+    private ViewController currentView;
+
+    /**
+     * Shows the status of the background archive purge in the status bar. The status is reported on the purge thread,
+     * so it is passed on to the application thread.
+     */
+    @FXML
+    public void initialize() {
+        ArchiveScheduler.getInstance().addStatusListener(
+                status -> Platform.runLater(() -> this.archiveStatusLabel.setText(status)));
+    }
+
     /**
      * Loads the <code>AllPatientView</code> in the center of the main window.
      */
     @FXML
     private void handleShowAllPatient(ActionEvent event) {
-        FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/AllPatientView.fxml"));
-        try {
-            mainBorderPane.setCenter(loader.load());
-        } catch (IOException exception) {
-            exception.printStackTrace();
-        }
+        showView("/de/hitec/nhplus/AllPatientView.fxml");
     }
 
     /**
@@ -34,12 +48,7 @@ public class MainWindowController {
      */
     @FXML
     private void handleShowAllTreatments(ActionEvent event) {
-        FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/AllTreatmentView.fxml"));
-        try {
-            mainBorderPane.setCenter(loader.load());
-        } catch (IOException exception) {
-            exception.printStackTrace();
-        }
+        showView("/de/hitec/nhplus/AllTreatmentView.fxml");
     }
 
     /**
@@ -47,12 +56,7 @@ public class MainWindowController {
      */
     @FXML
     private void handleShowAllCaregivers(ActionEvent event) {
-        FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/AllCaregiverView.fxml"));
-        try {
-            mainBorderPane.setCenter(loader.load());
-        } catch (IOException exception) {
-            exception.printStackTrace();
-        }
+        showView("/de/hitec/nhplus/AllCaregiverView.fxml");
     }
 
     /**
@@ -60,9 +64,25 @@ public class MainWindowController {
      */
     @FXML
     private void handleShowAllMedicine(ActionEvent actionEvent) {
-        FXMLLoader loader = new FXMLLoader(Main.class.getResource("/de/hitec/nhplus/AllMedicineView.fxml"));
+        showView("/de/hitec/nhplus/AllMedicineView.fxml");
+    }
+
+    /**
+     * Loads the given view in the center of the main window. The view shown so far is disposed, so its loads that are
+     * still running are cancelled.
+     *
+     * @param resource Path of the FXML file of the view.
+     */
+    private void showView(String resource) {
+        FXMLLoader loader = new FXMLLoader(Main.class.getResource(resource));
         try {
-            mainBorderPane.setCenter(loader.load());
+            Parent view = loader.load();
+            if (this.currentView != null) {
+                this.currentView.dispose();
+            }
+
+            mainBorderPane.setCenter(view);
+            this.currentView = loader.getController() instanceof ViewController controller ? controller : null;
         } catch (IOException exception) {
             exception.printStackTrace();
         }
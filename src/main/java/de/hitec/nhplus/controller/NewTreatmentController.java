@@ -66,9 +66,11 @@ public class NewTreatmentController {
     private CaregiverDao caregiverDao;
     private PatientDao patientDao;
     private MedicineDao medicineDao;
+    private LoadGroup loads;
 
     /**
-     * Initializes the controller class. It gets all medicines from the database and displays them in the combo box.
+     * Initializes the controller class. The caregivers and the medicines for the combo boxes are loaded at the same
+     * time in the background. The loads are cancelled once the window is closed.
      *
      * @param controller The controller of the <code>AllTreatmentView</code>.
      * @param stage The stage of the <code>AllTreatmentView</code>.
@@ -83,6 +85,8 @@ public class NewTreatmentController {
         this.controller = controller;
         this.patient = patient;
         this.stage = stage;
+        this.loads = new LoadGroup();
+        this.loads.cancelWhenClosed(stage);
 
         this.buttonAdd.setDisable(true);
         ChangeListener<String> inputNewPatientListener = (observableValue, oldText, newText) ->
@@ -109,11 +113,11 @@ public class NewTreatmentController {
     }
 
     /**
-     * Creates a list of all caregivers.
-     * And adds them to the combo box.
+     * Loads all caregivers in the background.
+     * And adds them to the combo box once they arrive.
      */
     private void createComboBoxData() {
-        this.caregiverSelection.addAll(caregiverDao.getAll());
+        this.loads.load(caregiverDao::getAll, this.caregiverSelection::addAll);
 
         this.comboBoxCaregiver.setItems(this.caregiverSelection);
         this.comboBoxCaregiver.setConverter(new StringConverter<>() {
@@ -192,11 +196,11 @@ public class NewTreatmentController {
     }
 
     /**
-     * Reloads all medicines to the combo box by clearing the list of all medicines and filling it again by all
-     * persisted medicines, delivered by {@link MedicineDao}.
+     * Loads all persisted medicines, delivered by {@link MedicineDao}, in the background and adds them to the combo box
+     * once they arrive.
      */
     private void setComboBoxData() {
-        this.medications.addAll(medicineDao.getAll());
+        this.loads.load(medicineDao::getAll, this.medications::addAll);
 
         this.comboBoxMedicine.setItems(this.medications);
         this.comboBoxMedicine.setConverter(new StringConverter<>() {
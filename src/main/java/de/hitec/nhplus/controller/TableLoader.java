@@ -0,0 +1,140 @@
+package de.hitec.nhplus.controller;
+
+import de.hitec.nhplus.datastorage.DaoExecutor;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * The <code>TableLoader</code> loads the rows of a <code>TableView</code> in the background with a
+ * <code>javafx.concurrent.Task</code> on the {@link DaoExecutor}. While the table is empty and its rows are loading, a
+ * progress indicator takes the place of the placeholder.
+ * <p>
+ * Only the latest load of a table counts: a new load cancels the one still running, and results of a cancelled load
+ * are never applied, even if they arrive after the cancellation. Once the view is closed, <code>dispose()</code>
+ * cancels the running load and ignores all later ones. The loader is used on the JavaFX application thread only.
+ * </p>
+ *
+ * @param <T> Type of the rows.
+ */
+public class TableLoader<T> {
+
+    private final TableView<T> tableView;
+    private final ObservableList<T> items;
+    private final Node placeholder;
+    private final ProgressIndicator progressIndicator = new ProgressIndicator();
+    private final Label failedLabel = new Label("Daten konnten nicht geladen werden");
+
+    private Task<List<T>> task;
+    private long generation = 0;
+    private boolean disposed = false;
+
+    /**
+     * Creates a loader for the given table.
+     *
+     * @param tableView Table that shows the rows.
+     * @param items     List the table shows.
+     */
+    public TableLoader(TableView<T> tableView, ObservableList<T> items) {
+        this.tableView = tableView;
+        this.items = items;
+        this.placeholder = tableView.getPlaceholder();
+        this.progressIndicator.setMaxSize(40, 40);
+    }
+
+    /**
+     * Clears the table and replaces its rows with the result of the given call once it arrives.
+     *
+     * @param call Reads the rows, for example a DAO method reference.
+     */
+    public void load(Callable<? extends List<T>> call) {
+        this.load(call, true, this.items::setAll);
+    }
+
+    /**
+     * Runs the given call in the background and passes its result to the given consumer on the JavaFX application
+     * thread, unless the load was cancelled or replaced by a newer one in the meantime.
+     *
+     * @param call     Reads the rows.
+     * @param clear    Whether the table is cleared while the rows load, <code>false</code> to keep the rows, for
+     *                 example when the next page of a table is loaded.
+     * @param onLoaded Shows the rows in the table.
+     */
+    public void load(Callable<? extends List<T>> call, boolean clear, Consumer<? super List<T>> onLoaded) {
+        if (this.disposed)
+            return;
+
+        this.cancelTask();
+        long generation = ++this.generation;
+
+        Task<List<T>> task = new Task<>() {
+            @Override
+            protected List<T> call() throws Exception {
+                return call.call();
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (generation != this.generation)
+                return;
+
+            this.task = null;
+            this.tableView.setPlaceholder(this.placeholder);
+            onLoaded.accept(task.getValue());
+        });
+        task.setOnFailed(event -> {
+            task.getException().printStackTrace();
+            if (generation != this.generation)
+                return;
+
+            this.task = null;
+            this.tableView.setPlaceholder(this.failedLabel);
+        });
+
+        this.task = task;
+        if (clear) {
+            this.items.clear();
+        }
+        this.tableView.setPlaceholder(this.progressIndicator);
+        DaoExecutor.getInstance().execute(task);
+    }
+
+    /**
+     * Cancels the running load. Its result is not applied anymore.
+     */
+    public void cancel() {
+        this.cancelTask();
+        this.generation++;
+        this.tableView.setPlaceholder(this.placeholder);
+    }
+
+    /**
+     * Cancels the running load and ignores all later loads. Called when the view is closed.
+     */
+    public void dispose() {
+        this.cancel();
+        this.disposed = true;
+    }
+
+    /**
+     * Returns whether a load is running.
+     *
+     * @return <code>true</code> if a load is running, otherwise <code>false</code>.
+     */
+    public boolean isLoading() {
+        return this.task != null;
+    }
+
+    private void cancelTask() {
+        if (this.task != null) {
+            this.task.cancel(true);
+            this.task = null;
+        }
+    }
+}
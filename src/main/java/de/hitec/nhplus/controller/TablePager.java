@@ -0,0 +1,169 @@
+package de.hitec.nhplus.controller;
+
+import de.hitec.nhplus.model.Entity;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableColumnBase;
+import javafx.scene.control.TableView;
+
+import java.util.List;
+
+/**
+ * The <code>TablePager</code> fills the items of a <code>TableView</code> page by page. The first page is loaded
+ * immediately, every further page once the user scrolls close to the end of the table. Pages are read with keyset
+ * pagination, the id of the last loaded entity marks where the next page starts.
+ * <p>
+ * The pages are read in the background by a {@link TableLoader} and added once they arrive. A reload cancels the page
+ * that is still being read, so the table never shows a page of an old filter.
+ * </p>
+ * <p>
+ * The columns of a paged table cannot be sorted: a click on a column header would only sort the loaded pages, and
+ * later pages would be appended unsorted. The rows keep the order of the pages, which is the order of the ids.
+ * </p>
+ *
+ * @param <T> Type of the entities shown in the table.
+ */
+public final class TablePager<T extends Entity> {
+
+    /**
+     * Loads a page of entities.
+     *
+     * @param <T> Type of the entities.
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        /**
+         * Loads the entities following the given id, ordered by id.
+         *
+         * @param afterId Id after which the page starts, <code>0</code> for the first page.
+         * @param limit   Maximum number of entities on the page.
+         * @return The entities of the page.
+         */
+        List<T> load(long afterId, int limit);
+    }
+
+    public static final int PAGE_SIZE = 100;
+
+    // the next page is loaded once the scroll bar passes this share of its range
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    private final TableView<T> tableView;
+    private final ObservableList<T> items;
+    private final TableLoader<T> tableLoader;
+    private PageLoader<T> loader;
+    private long lastId = 0;
+    private boolean exhausted = true;
+    private ScrollBar scrollBar;
+
+    /**
+     * Creates a pager for the given table. The pager does not load anything until <code>reload()</code> is called.
+     *
+     * @param tableView Table to watch for scrolling.
+     * @param items     List the table shows, the pages are added to it.
+     */
+    public TablePager(TableView<T> tableView, ObservableList<T> items) {
+        this.tableView = tableView;
+        this.items = items;
+        this.tableLoader = new TableLoader<>(tableView, items);
+        TablePager.disableSorting(tableView.getColumns());
+
+        // the scroll bar only exists once the table got its skin
+        this.tableView.skinProperty().addListener((observableValue, oldSkin, newSkin) -> this.attachScrollBar());
+        this.attachScrollBar();
+    }
+
+    /**
+     * Clears the items and loads the first page with the given loader. Further pages are read with the same loader.
+     *
+     * @param loader Loader of the pages.
+     */
+    public void reload(PageLoader<T> loader) {
+        this.loader = loader;
+        this.lastId = 0;
+        this.exhausted = false;
+        this.tableLoader.load(() -> loader.load(0, PAGE_SIZE), true, this::addPage);
+    }
+
+    /**
+     * Loads the next page and adds it to the items. Does nothing if all pages are loaded already or a page is still
+     * being read.
+     */
+    public void loadNextPage() {
+        if (this.exhausted || this.tableLoader.isLoading())
+            return;
+
+        PageLoader<T> loader = this.loader;
+        long afterId = this.lastId;
+        this.tableLoader.load(() -> loader.load(afterId, PAGE_SIZE), false, this::addPage);
+    }
+
+    /**
+     * Cancels the page that is still being read and stops loading pages. Called when the view is closed.
+     */
+    public void dispose() {
+        this.tableLoader.dispose();
+    }
+
+    /**
+     * Adds a loaded page to the items.
+     *
+     * @param page The entities of the page.
+     */
+    private void addPage(List<T> page) {
+        this.items.addAll(page);
+
+        if (page.size() < PAGE_SIZE)
+            this.exhausted = true;
+        else
+            this.lastId = page.get(page.size() - 1).getId();
+    }
+
+    /**
+     * Adds a newly created entity to the items. While pages are still outstanding, the entity is skipped, since its id
+     * is greater than all loaded ones and it will be part of a later page.
+     *
+     * @param entity The created entity.
+     */
+    public void add(T entity) {
+        if (this.exhausted)
+            this.items.add(entity);
+    }
+
+    /**
+     * Returns whether all pages are loaded.
+     *
+     * @return <code>true</code> if all pages are loaded, otherwise <code>false</code>.
+     */
+    public boolean isExhausted() {
+        return this.exhausted;
+    }
+
+    /**
+     * Makes the given columns and their nested columns unsortable.
+     *
+     * @param columns The columns of the table.
+     */
+    private static void disableSorting(List<? extends TableColumnBase<?, ?>> columns) {
+        for (TableColumnBase<?, ?> column : columns) {
+            column.setSortable(false);
+            TablePager.disableSorting(column.getColumns());
+        }
+    }
+
+    /**
+     * Looks up the vertical scroll bar of the table and loads the next page whenever it is scrolled close to its end.
+     */
+    private void attachScrollBar() {
+        for (Node node : this.tableView.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL && bar != this.scrollBar) {
+                this.scrollBar = bar;
+                bar.valueProperty().addListener((observableValue, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMax() * LOAD_THRESHOLD)
+                        this.loadNextPage();
+                });
+            }
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package de.hitec.nhplus.controller;
 
 import de.hitec.nhplus.datastorage.*;
-import de.hitec.nhplus.model.Caregiver;
-import de.hitec.nhplus.model.Medicine;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
-import de.hitec.nhplus.model.Patient;
 import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.TreatmentDetails;
 import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.SQLException;
@@ -53,11 +51,8 @@ public class TreatmentController {
     private Stage stage;
 
     private TreatmentDao treatmentDao;
-    private CaregiverDao caregiverDao;
-    private PatientDao patientDao;
-    private MedicineDao medicineDao;
 
-    private Patient patient;
+    private TreatmentDetails details;
     private Treatment treatment;
 
     /**
@@ -65,27 +60,22 @@ public class TreatmentController {
      *
      * @param controller The controller of the <code>AllTreatmentView</code>.
      * @param stage The stage of the <code>AllTreatmentView</code>.
-     * @param treatment The treatment for which the treatment window should be opened.
+     * @param details The treatment for which the treatment window should be opened, with the data of the patient,
+     *                caregiver and medicine it references.
      */
-    public void initializeController(AllTreatmentController controller, Stage stage, Treatment treatment) {
+    public void initializeController(AllTreatmentController controller, Stage stage, TreatmentDetails details) {
         treatmentDao = DaoFactory.getDaoFactory().createTreatmentDao();
-        caregiverDao = DaoFactory.getDaoFactory().createCaregiverDAO();
-        patientDao = DaoFactory.getDaoFactory().createPatientDAO();
-        medicineDao = DaoFactory.getDaoFactory().createMedicineDAO();
 
         this.stage = stage;
         this.controller = controller;
-        this.treatment = treatment;
+        this.details = details;
+        this.treatment = details.getTreatment();
 
-        var patient = patientDao.getById(treatment.getPid());
-
-        if (patient.isEmpty()) {
+        if (details.getPatientSurname() == null) {
             handleCancel();
             return;
         }
 
-        this.patient = patient.get();
-
         showData();
 
         if (this.treatment.isArchived()) {
@@ -105,21 +95,16 @@ public class TreatmentController {
     private void showData() {
         LocalDate date = DateConverter.convertStringToLocalDate(treatment.getDate());
 
-        this.labelPatientName.setText(patient.getSurname() + ", " + patient.getFirstName());
-        this.labelCareLevel.setText(patient.getCareLevel());
+        this.labelPatientName.setText(details.getPatientSurname() + ", " + details.getPatientFirstName());
+        this.labelCareLevel.setText(details.getPatientCareLevel());
         this.datePicker.setValue(date);
         this.textFieldBegin.setText(this.treatment.getBegin());
         this.textFieldEnd.setText(this.treatment.getEnd());
         this.textFieldDescription.setText(this.treatment.getDescription());
         this.textAreaRemarks.setText(this.treatment.getRemarks());
 
-        var caregiverName = caregiverDao.getById(treatment.getCid())
-                .map(Caregiver::getFullName)
-                .orElse(" - ");
-
-        var medicineName = medicineDao.getById(treatment.getMid())
-                .map(Medicine::getName)
-                .orElse(" - ");
+        var caregiverName = Optional.ofNullable(details.getCaregiverName()).orElse(" - ");
+        var medicineName = Optional.ofNullable(details.getMedicineName()).orElse(" - ");
 
         this.labelCaregiver.setText(caregiverName);
         this.labelMedicine.setText(medicineName);
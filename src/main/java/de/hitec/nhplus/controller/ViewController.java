@@ -0,0 +1,12 @@
+package de.hitec.nhplus.controller;
+
+/**
+ * Controller of a view that is shown in the center of the main window. The {@link MainWindowController} disposes the
+ * controller when it shows another view, so loads of the old view do not keep running in the background.
+ */
+public interface ViewController {
+    /**
+     * Cancels the loads of the view that are still running. Their results are dropped.
+     */
+    void dispose();
+}
@@ -0,0 +1,149 @@
+package de.hitec.nhplus.datastorage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade over a {@link Dao}. Every operation runs on the {@link DaoExecutor} and returns a
+ * <code>CompletableFuture</code>, whose callbacks run on the JavaFX application thread. Operations that are specific
+ * to one DAO run with <code>call()</code>.
+ * <p>
+ * Example:
+ * <pre>
+ * new AsyncDao&lt;&gt;(patientDao).call(PatientDao::getAllNotArchived)
+ *         .thenAccept(patients -&gt; this.patients.setAll(patients));
+ * </pre>
+ *
+ * @param <D>             Type of the wrapped DAO.
+ * @param <T>             Type of the objects of the DAO.
+ * @param <TCreationData> Type of the data the objects are created from.
+ */
+public class AsyncDao<D extends Dao<T, TCreationData>, T, TCreationData> {
+
+    private final D dao;
+    private final DaoExecutor executor;
+
+    /**
+     * Creates a facade that runs the operations on the executor of the application.
+     *
+     * @param dao The wrapped DAO.
+     */
+    public AsyncDao(D dao) {
+        this(dao, DaoExecutor.getInstance());
+    }
+
+    /**
+     * Creates a facade that runs the operations on the given executor.
+     *
+     * @param dao      The wrapped DAO.
+     * @param executor Executor to run the operations on.
+     */
+    public AsyncDao(D dao, DaoExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the given operation of the wrapped DAO in the background.
+     *
+     * @param operation The operation, for example a method reference like <code>PatientDao::getAllNotArchived</code>.
+     * @param <R>       Type of the result.
+     * @return Future of the result.
+     */
+    public <R> CompletableFuture<R> call(Function<? super D, R> operation) {
+        return this.executor.submit(() -> operation.apply(this.dao));
+    }
+
+    /**
+     * See {@link Dao#create(Object)}.
+     *
+     * @param data Data of the object to create.
+     * @return Future of the created object.
+     */
+    public CompletableFuture<T> create(TCreationData data) {
+        return this.call(dao -> dao.create(data));
+    }
+
+    /**
+     * See {@link Dao#createAll(Collection)}.
+     *
+     * @param data Data of the objects to create.
+     * @return Future of the created objects.
+     */
+    public CompletableFuture<List<T>> createAll(Collection<TCreationData> data) {
+        return this.call(dao -> dao.createAll(data));
+    }
+
+    /**
+     * See {@link Dao#getById(long)}.
+     *
+     * @param id Id of the object.
+     * @return Future of the object, empty if it does not exist.
+     */
+    public CompletableFuture<Optional<T>> getById(long id) {
+        return this.call(dao -> dao.getById(id));
+    }
+
+    /**
+     * See {@link Dao#getByIds(Collection)}.
+     *
+     * @param ids Ids of the objects.
+     * @return Future of the found objects by their id.
+     */
+    public CompletableFuture<Map<Long, T>> getByIds(Collection<Long> ids) {
+        return this.call(dao -> dao.getByIds(ids));
+    }
+
+    /**
+     * See {@link Dao#getAll()}.
+     *
+     * @return Future of all objects.
+     */
+    public CompletableFuture<List<T>> getAll() {
+        return this.call(Dao::getAll);
+    }
+
+    /**
+     * See {@link Dao#getPage(long, int)}.
+     *
+     * @param afterId Id after which the page starts, <code>0</code> for the first page.
+     * @param limit   Maximum number of objects on the page.
+     * @return Future of the page.
+     */
+    public CompletableFuture<List<T>> getPage(long afterId, int limit) {
+        return this.call(dao -> dao.getPage(afterId, limit));
+    }
+
+    /**
+     * See {@link Dao#update(Object)}.
+     *
+     * @param entity Object to update.
+     * @return Future of the updated object.
+     */
+    public CompletableFuture<T> update(T entity) {
+        return this.call(dao -> dao.update(entity));
+    }
+
+    /**
+     * See {@link Dao#delete(long)}.
+     *
+     * @param id Id of the object to delete.
+     * @return Future of the deleted object, empty if it did not exist.
+     */
+    public CompletableFuture<Optional<T>> delete(long id) {
+        return this.call(dao -> dao.delete(id));
+    }
+
+    /**
+     * Returns the wrapped DAO.
+     *
+     * @return The DAO.
+     */
+    public D getDao() {
+        return this.dao;
+    }
+}
@@ -2,6 +2,7 @@ package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.Caregiver;
 import de.hitec.nhplus.model.CreationData.CaregiverCreationData;
+import de.hitec.nhplus.model.Exceptions.UpdateException;
 import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.Connection;
@@ -10,6 +11,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.stream.Stream;
 
 import static de.hitec.nhplus.datastorage.PatientDao.TABLE_NAME;
 
@@ -19,6 +21,10 @@ import static de.hitec.nhplus.datastorage.PatientDao.TABLE_NAME;
 public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
     public static final String TABLE_NAME = "caregiver";
 
+    // Caregivers referenced by a treatment that is not archived or was archived on or after the cutoff have to be kept
+    private static final String KEEP_CONDITION = "EXISTS (SELECT 1 FROM treatment WHERE treatment.caregiverId = caregiver.id " +
+            "AND (treatment.archivedOn IS NULL OR treatment.archivedOn >= ?))";
+
     /**
      * The constructor initiates an object of <code>CaregiverDao</code> and passes the connection to its super class.
      *
@@ -28,17 +34,31 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>CaregiverDao</code> that acquires its connections from the given provider.
+     *
+     * @param connectionProvider Provider of the connections to execute the SQL-statements.
+     */
+    public CaregiverDao(ConnectionProvider connectionProvider) {
+        super(connectionProvider);
+    }
+
     @Override
-    protected PreparedStatement getCreateStatement(CaregiverCreationData caregiver) {
+    protected String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    protected PreparedStatement getCreateStatement(CaregiverCreationData caregiver, boolean returning) {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO caregiver (firstname, surname, phoneNumber, archivedOn) " +
-                    "VALUES (?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "VALUES (?, ?, ?, ?)" + (returning ? RETURNING_ALL : "");
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, caregiver.firstName());
             preparedStatement.setString(2, caregiver.surname());
             preparedStatement.setString(3, caregiver.phoneNumber());
-            preparedStatement.setString(4, caregiver.archivedOn() == null ? null : caregiver.archivedOn().toString());
+            preparedStatement.setObject(4, caregiver.archivedOn() == null ? null : DateConverter.convertLocalDateToEpochDay(caregiver.archivedOn()));
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -50,7 +70,7 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM caregiver WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, key);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -68,7 +88,7 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM caregiver";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -83,9 +103,7 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
     public ArrayList<Caregiver> getAllArchived() {
         try {
             final String SQL = "SELECT * FROM caregiver WHERE archivedOn IS NOT NULL";
-            ResultSet result = this.connection.prepareStatement(SQL).executeQuery();
-
-            return getListFromResultSet(result);
+            return readList(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -101,9 +119,42 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
     public ArrayList<Caregiver> getAllNotArchived() {
         try {
             final String SQL = "SELECT * FROM caregiver WHERE archivedOn IS NULL";
-            ResultSet result = this.connection.prepareStatement(SQL).executeQuery();
+            return readList(SQL);
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Streams all archived caregivers from the database. The stream has to be closed after use.
+     *
+     * @return Stream of all caregivers that are archived.
+     */
+    public Stream<Caregiver> streamAllArchived() {
+        return stream("SELECT * FROM caregiver WHERE archivedOn IS NOT NULL");
+    }
+
+    /**
+     * Streams all not archived caregivers from the database. The stream has to be closed after use.
+     *
+     * @return Stream of all caregivers that are not archived.
+     */
+    public Stream<Caregiver> streamAllNotArchived() {
+        return stream("SELECT * FROM caregiver WHERE archivedOn IS NULL");
+    }
 
-            return getListFromResultSet(result);
+    /**
+     * Gets a page of not archived caregivers from the database, ordered by id.
+     *
+     * @param afterId Id after which the page starts, <code>0</code> for the first page.
+     * @param limit   Maximum number of caregivers on the page.
+     * @return Not archived caregivers with an id greater than <code>afterId</code>.
+     */
+    public ArrayList<Caregiver> getPageNotArchived(long afterId, int limit) {
+        try {
+            return readPage("archivedOn IS NULL", afterId, limit);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -129,7 +180,7 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
                                     "surname = ?, " +
                                     "phoneNumber = ? " +
                                     "WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, caregiver.getFirstName());
             preparedStatement.setString(2, caregiver.getSurname());
             preparedStatement.setString(3, caregiver.getPhoneNumber());
@@ -144,8 +195,8 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
     protected PreparedStatement getDeleteStatement(long key) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "DELETE FROM caregiver WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "DELETE FROM caregiver WHERE id = ?" + RETURNING_ALL;
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, key);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -153,6 +204,47 @@ public class CaregiverDao extends DaoImp<Caregiver, CaregiverCreationData>{
         return preparedStatement;
     }
 
+    /**
+     * Deletes all caregivers that were archived before the given date and are not referenced by a treatment that has
+     * to be kept, that is a treatment which is not archived or was archived on or after the given date. Runs as a
+     * single statement.
+     *
+     * @param cutoff Caregivers archived before this date are deleted.
+     * @return The number of deleted caregivers.
+     * @throws UpdateException If the caregivers could not be deleted.
+     */
+    public int deleteArchivedBefore(LocalDate cutoff) {
+        long cutoffDay = DateConverter.convertLocalDateToEpochDay(cutoff);
+        try {
+            final String SQL = "DELETE FROM caregiver WHERE archivedOn IS NOT NULL AND archivedOn < ? " +
+                    "AND NOT " + KEEP_CONDITION;
+            return write(() -> {
+                PreparedStatement preparedStatement = this.prepareStatement(SQL);
+                preparedStatement.setLong(1, cutoffDay);
+                preparedStatement.setLong(2, cutoffDay);
+                return preparedStatement.executeUpdate();
+            });
+        } catch (SQLException exception) {
+            throw new UpdateException(exception.getMessage());
+        } finally {
+            this.invalidateCache();
+        }
+    }
+
+    /**
+     * Deletes the next chunk of caregivers that were archived before the given date. Caregivers referenced by a treatment that
+     * has to be kept are skipped.
+     *
+     * @param cutoff Caregivers archived before this date are deleted.
+     * @param limit  Maximum number of archived caregivers the chunk looks at.
+     * @return The result of the chunk.
+     * @throws SQLException If the chunk could not be deleted, the chunk is rolled back then.
+     */
+    @Override
+    public PurgeChunk deleteArchivedChunk(LocalDate cutoff, int limit) throws SQLException {
+        return deleteArchivedChunk(cutoff, limit, KEEP_CONDITION, DateConverter.convertLocalDateToEpochDay(cutoff));
+    }
+
     /**
      * Archives a caregiver with the given id.
      *
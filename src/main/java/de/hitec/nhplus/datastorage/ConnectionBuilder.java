@@ -7,44 +7,47 @@ import java.sql.SQLException;
 import org.sqlite.SQLiteConfig;
 
 /**
- * The <code>ConnectionBuilder</code> builds up a connection to the database. It uses the <code>DriverManager</code> to
- * build up a connection to the database. The connection is stored in a static field.
+ * The <code>ConnectionBuilder</code> builds up connections to the database. It uses the <code>DriverManager</code> to
+ * build up a connection to the database. The connections are managed by the {@link ConnectionPool}.
  */
 public class ConnectionBuilder {
 
     private static final String DB_NAME = "nursingHome.db";
     private static final String URL = "jdbc:sqlite:db/" + DB_NAME;
 
-    private static Connection connection;
+    private ConnectionBuilder() {
+    }
 
     /**
-     * Gets the connection to the database. If the connection is not yet established, it builds up a new connection.
+     * Builds up a new connection to the database. The settings of the {@link DatabaseProfile} are applied to the
+     * connection.
      *
-     * @return The connection to the database.
+     * @param readOnly Whether the connection should be opened read-only.
+     * @return The new connection to the database.
+     * @throws SQLException If the connection could not be established.
      */
-    synchronized public static Connection getConnection() {
+    public static Connection buildConnection(boolean readOnly) throws SQLException {
         try {
-            if (ConnectionBuilder.connection == null) {
-                SQLiteConfig configuration = new SQLiteConfig();
-                configuration.enforceForeignKeys(true);
-                ConnectionBuilder.connection = DriverManager.getConnection(URL, configuration.toProperties());
-            }
+            SQLiteConfig configuration = new SQLiteConfig();
+            configuration.enforceForeignKeys(true);
+            configuration.setReadOnly(readOnly);
+            DatabaseProfile.getInstance().apply(configuration, readOnly);
+            return DriverManager.getConnection(URL, configuration.toProperties());
         } catch (SQLException exception) {
             System.out.println("Verbindung zur Datenbank konnte nicht aufgebaut werden!");
-            exception.printStackTrace();
+            throw exception;
         }
-        return ConnectionBuilder.connection;
     }
 
     /**
-     * Closes the connection to the database.
+     * Closes the given connection and all statements cached for it.
+     *
+     * @param connection The connection to close.
      */
-    synchronized public static void closeConnection() {
+    public static void closeConnection(Connection connection) {
         try {
-            if (ConnectionBuilder.connection != null) {
-                ConnectionBuilder.connection.close();
-                ConnectionBuilder.connection = null;
-            }
+            StatementCache.close(connection);
+            connection.close();
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -0,0 +1,169 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The <code>ConnectionPool</code> manages the connections to the database. It holds one dedicated write connection
+ * and a fixed number of read-only connections. Writes are serialized on the write connection, while reads run
+ * concurrently on the read connections, so that a long running query does not block other reads. The number of read
+ * connections is taken from the {@link DatabaseProfile}. It is a singleton class.
+ */
+public class ConnectionPool implements ConnectionProvider {
+
+    private static ConnectionPool instance;
+
+    private final int maxReadConnections;
+    private final LinkedBlockingQueue<Connection> idleReadConnections = new LinkedBlockingQueue<>();
+    private final List<Connection> readConnections = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private Connection writeConnection;
+
+    /**
+     * Creates a new pool with the given number of read connections.
+     *
+     * @param maxReadConnections Maximum number of read-only connections.
+     */
+    private ConnectionPool(int maxReadConnections) {
+        this.maxReadConnections = maxReadConnections;
+    }
+
+    /**
+     * Returns the singleton instance of the <code>ConnectionPool</code>.
+     *
+     * @return The singleton instance of the <code>ConnectionPool</code>.
+     */
+    public static synchronized ConnectionPool getInstance() {
+        if (ConnectionPool.instance == null) {
+            ConnectionPool.instance = new ConnectionPool(DatabaseProfile.getInstance().getReadConnections());
+        }
+        return ConnectionPool.instance;
+    }
+
+    /**
+     * Closes all connections of the pool. The next call of <code>getInstance()</code> creates a new pool.
+     */
+    public static synchronized void shutdown() {
+        if (ConnectionPool.instance != null) {
+            ConnectionPool.instance.close();
+            ConnectionPool.instance = null;
+        }
+    }
+
+    /**
+     * Returns the number of read-only connections this pool opens at most.
+     *
+     * @return The maximum number of read connections.
+     */
+    public int getMaxReadConnections() {
+        return this.maxReadConnections;
+    }
+
+    /**
+     * Describes the database settings in effect on the write connection.
+     *
+     * @return The settings in effect, formatted as <code>pragma=value</code> pairs.
+     * @throws SQLException If the connection could not be established or the settings could not be read.
+     */
+    public String describeProfile() throws SQLException {
+        Connection connection = acquireWriteConnection();
+        try {
+            return DatabaseProfile.getInstance().describe(connection);
+        } finally {
+            releaseWriteConnection(connection);
+        }
+    }
+
+    /**
+     * Acquires an idle read connection. A new connection is opened as long as the pool holds fewer than the maximum
+     * number of read connections, otherwise the call blocks until another thread releases its connection.
+     *
+     * @return A read-only connection.
+     * @throws SQLException If the connection could not be established or the thread was interrupted while waiting.
+     */
+    @Override
+    public Connection acquireReadConnection() throws SQLException {
+        Connection connection = this.idleReadConnections.poll();
+        if (connection != null)
+            return connection;
+
+        synchronized (this.readConnections) {
+            if (this.readConnections.size() < this.maxReadConnections) {
+                // the database file is created by the write connection, read-only connections cannot create it
+                getWriteConnection();
+                connection = ConnectionBuilder.buildConnection(true);
+                this.readConnections.add(connection);
+                return connection;
+            }
+        }
+
+        try {
+            return this.idleReadConnections.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", exception);
+        }
+    }
+
+    @Override
+    public void releaseReadConnection(Connection connection) {
+        this.idleReadConnections.offer(connection);
+    }
+
+    /**
+     * Acquires the write connection. The calling thread holds it exclusively until it releases it.
+     *
+     * @return The write connection.
+     * @throws SQLException If the connection could not be established.
+     */
+    @Override
+    public Connection acquireWriteConnection() throws SQLException {
+        this.writeLock.lock();
+        try {
+            return getWriteConnection();
+        } catch (SQLException exception) {
+            this.writeLock.unlock();
+            throw exception;
+        }
+    }
+
+    @Override
+    public void releaseWriteConnection(Connection connection) {
+        this.writeLock.unlock();
+    }
+
+    /**
+     * Returns the write connection and builds it up on first use.
+     *
+     * @return The write connection.
+     * @throws SQLException If the connection could not be established.
+     */
+    private synchronized Connection getWriteConnection() throws SQLException {
+        if (this.writeConnection == null) {
+            this.writeConnection = ConnectionBuilder.buildConnection(false);
+        }
+        return this.writeConnection;
+    }
+
+    /**
+     * Closes the write connection and all read connections.
+     */
+    private void close() {
+        synchronized (this.readConnections) {
+            this.readConnections.forEach(ConnectionBuilder::closeConnection);
+            this.readConnections.clear();
+            this.idleReadConnections.clear();
+        }
+
+        synchronized (this) {
+            if (this.writeConnection != null) {
+                ConnectionBuilder.closeConnection(this.writeConnection);
+                this.writeConnection = null;
+            }
+        }
+    }
+}
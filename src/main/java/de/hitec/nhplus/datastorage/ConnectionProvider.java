@@ -0,0 +1,41 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A <code>ConnectionProvider</code> hands out connections to the DAOs. Every connection that is acquired has to be
+ * released again with the matching release method once the operation is done.
+ */
+public interface ConnectionProvider {
+    /**
+     * Acquires a connection that is used for reading only. Blocks until a connection is available.
+     *
+     * @return A connection for reading.
+     * @throws SQLException If no connection could be established.
+     */
+    Connection acquireReadConnection() throws SQLException;
+
+    /**
+     * Releases a connection acquired by <code>acquireReadConnection()</code>.
+     *
+     * @param connection The connection to release.
+     */
+    void releaseReadConnection(Connection connection);
+
+    /**
+     * Acquires the connection that is used for writing. Only one thread at a time holds the write connection, all
+     * other threads block until it is released.
+     *
+     * @return The connection for writing.
+     * @throws SQLException If no connection could be established.
+     */
+    Connection acquireWriteConnection() throws SQLException;
+
+    /**
+     * Releases a connection acquired by <code>acquireWriteConnection()</code>.
+     *
+     * @param connection The connection to release.
+     */
+    void releaseWriteConnection(Connection connection);
+}
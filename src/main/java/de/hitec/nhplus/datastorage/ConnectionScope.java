@@ -0,0 +1,212 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the connection of the currently running DAO operation to the calling thread. Nested operations on the same
+ * thread reuse the bound connection instead of acquiring another one, so that for example the read after an insert
+ * sees the inserted row and a thread never waits for a connection it already holds.
+ * <p>
+ * A transaction keeps the write connection bound until it is committed, so all DAO operations of the thread join it.
+ * Nested transactions run in savepoints of the outer one.
+ * </p>
+ */
+final class ConnectionScope {
+
+    /**
+     * Work that is executed with a bound connection.
+     *
+     * @param <R> Type of the result.
+     */
+    @FunctionalInterface
+    interface SqlWork<R> {
+        R execute() throws SQLException;
+    }
+
+    /**
+     * Actions that run once the transaction is finished, whether it was committed or rolled back.
+     */
+    private static final class Transaction {
+        private final List<Runnable> completions = new ArrayList<>();
+
+        private void complete() {
+            for (Runnable completion : this.completions) {
+                completion.run();
+            }
+        }
+    }
+
+    private record Binding(ConnectionProvider provider, Connection connection, boolean writable,
+                           Transaction transaction) {
+    }
+
+    private static final ThreadLocal<Binding> current = new ThreadLocal<>();
+
+    private ConnectionScope() {
+    }
+
+    /**
+     * Returns the connection bound to the calling thread.
+     *
+     * @return The bound connection.
+     * @throws IllegalStateException If no connection is bound to the calling thread.
+     */
+    static Connection currentConnection() {
+        Binding binding = current.get();
+        if (binding == null)
+            throw new IllegalStateException("No connection bound, wrap the call in read() or write()");
+
+        return binding.connection();
+    }
+
+    /**
+     * Returns whether the calling thread holds a write connection. Reads on the write connection may see changes of a
+     * transaction that is not committed yet.
+     *
+     * @return <code>true</code> if a write connection is bound to the calling thread, otherwise <code>false</code>.
+     */
+    static boolean isWriting() {
+        Binding binding = current.get();
+        return binding != null && binding.writable();
+    }
+
+    /**
+     * Executes the given work with a read connection of the given provider. If the thread already holds a connection
+     * of the provider, that connection is used.
+     *
+     * @param provider Provider to acquire the connection from.
+     * @param work     The work to execute.
+     * @param <R>      Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or no connection could be acquired.
+     */
+    static <R> R read(ConnectionProvider provider, SqlWork<R> work) throws SQLException {
+        Binding binding = current.get();
+        if (binding != null && binding.provider() == provider)
+            return work.execute();
+
+        Connection connection = provider.acquireReadConnection();
+        try {
+            current.set(new Binding(provider, connection, false, null));
+            return work.execute();
+        } finally {
+            restore(binding);
+            provider.releaseReadConnection(connection);
+        }
+    }
+
+    /**
+     * Executes the given work with the write connection of the given provider. If the thread already holds the write
+     * connection of the provider, it is used again.
+     *
+     * @param provider Provider to acquire the connection from.
+     * @param work     The work to execute.
+     * @param <R>      Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or no connection could be acquired.
+     */
+    static <R> R write(ConnectionProvider provider, SqlWork<R> work) throws SQLException {
+        Binding binding = current.get();
+        if (binding != null && binding.provider() == provider && binding.writable())
+            return work.execute();
+
+        Connection connection = provider.acquireWriteConnection();
+        try {
+            current.set(new Binding(provider, connection, true, null));
+            return work.execute();
+        } finally {
+            restore(binding);
+            provider.releaseWriteConnection(connection);
+        }
+    }
+
+    /**
+     * Executes the given work in a transaction on the write connection of the given provider. The transaction is
+     * committed if the work succeeds and rolled back if it fails. If the connection is already in a transaction, the
+     * work runs in a savepoint, so a failure only rolls back the changes of the work and the outer transaction goes on.
+     *
+     * @param provider Provider to acquire the connection from.
+     * @param work     The work to execute.
+     * @param <R>      Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or the transaction could not be committed.
+     */
+    static <R> R transaction(ConnectionProvider provider, SqlWork<R> work) throws SQLException {
+        return write(provider, () -> {
+            Binding binding = current.get();
+            Connection connection = binding.connection();
+            if (!connection.getAutoCommit())
+                return savepoint(connection, work);
+
+            Transaction transaction = new Transaction();
+            connection.setAutoCommit(false);
+            current.set(new Binding(provider, connection, true, transaction));
+            try {
+                R result = work.execute();
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException exception) {
+                connection.rollback();
+                throw exception;
+            } finally {
+                connection.setAutoCommit(true);
+                current.set(binding);
+                transaction.complete();
+            }
+        });
+    }
+
+    /**
+     * Executes the given work in a savepoint of the running transaction.
+     *
+     * @param connection Connection in a transaction.
+     * @param work       The work to execute.
+     * @param <R>        Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or the savepoint could not be released.
+     */
+    private static <R> R savepoint(Connection connection, SqlWork<R> work) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            R result = work.execute();
+            connection.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException | RuntimeException exception) {
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+            throw exception;
+        }
+    }
+
+    /**
+     * Runs the given action now and, if the calling thread is in a transaction, once more after the transaction is
+     * finished. Used to invalidate caches, so no other thread caches rows that the transaction has not committed yet
+     * or that were rolled back.
+     *
+     * @param action The action to run.
+     */
+    static void afterTransaction(Runnable action) {
+        action.run();
+
+        Binding binding = current.get();
+        if (binding != null && binding.transaction() != null) {
+            binding.transaction().completions.add(action);
+        }
+    }
+
+    /**
+     * Restores the binding that was active before an operation started.
+     *
+     * @param binding The previous binding, <code>null</code> if there was none.
+     */
+    private static void restore(Binding binding) {
+        if (binding == null)
+            current.remove();
+        else
+            current.set(binding);
+    }
+}
@@ -1,7 +1,10 @@
 package de.hitec.nhplus.datastorage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface for all DAOs. It defines methods to create, read, update and delete objects from the database.
@@ -17,6 +20,23 @@ public interface Dao<TEntity, TCreationData> {
      */
     TEntity create(TCreationData entity);
 
+    /**
+     * Creates new objects of type <code>T</code> in the database. All objects are inserted in one transaction, either
+     * all of them are created or none.
+     *
+     * @param data Data of the objects to be stored in the database.
+     * @return The created objects with their generated ids, in the order of <code>data</code>.
+     */
+    List<TEntity> createAll(Collection<TCreationData> data);
+
+    /**
+     * Creates new objects of type <code>T</code> in the database in one transaction, without reading them back.
+     *
+     * @param data Data of the objects to be stored in the database.
+     * @return The number of created objects.
+     */
+    int insertAll(Collection<TCreationData> data);
+
     /**
      * Gets an object of type <code>T</code> from the database by its id.
      *
@@ -25,6 +45,16 @@ public interface Dao<TEntity, TCreationData> {
      */
     Optional<TEntity> getById(long id);
 
+    /**
+     * Gets the objects of type <code>T</code> with the given ids from the database. Large sets of ids are read in a
+     * few chunks, not with one query per id.
+     *
+     * @param ids IDs of the objects to be retrieved.
+     * @return Map of the found objects by their id, in the order of <code>ids</code>. Ids without an object are
+     * missing in the map.
+     */
+    Map<Long, TEntity> getByIds(Collection<Long> ids);
+
     /**
      * Gets all objects of type <code>T</code> from the database.
      *
@@ -32,6 +62,25 @@ public interface Dao<TEntity, TCreationData> {
      */
     List<TEntity> getAll();
 
+    /**
+     * Gets a page of objects of type <code>T</code> from the database, ordered by id. The page starts after the given
+     * id, so the next page is read by passing the id of the last object of the current page.
+     *
+     * @param afterId Id after which the page starts, <code>0</code> for the first page.
+     * @param limit   Maximum number of objects on the page.
+     * @return List of at most <code>limit</code> objects with an id greater than <code>afterId</code>.
+     */
+    List<TEntity> getPage(long afterId, int limit);
+
+    /**
+     * Streams all objects of type <code>T</code> from the database. The rows are read lazily from the database while
+     * the stream is consumed. The stream holds a database connection and has to be closed after use, preferably with
+     * try-with-resources.
+     *
+     * @return Stream of all objects of type <code>T</code>.
+     */
+    Stream<TEntity> stream();
+
     /**
      * Updates an object of type <code>T</code> in the database.
      *
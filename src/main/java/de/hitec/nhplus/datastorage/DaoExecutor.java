@@ -0,0 +1,143 @@
+package de.hitec.nhplus.datastorage;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The <code>DaoExecutor</code> runs DAO calls in the background, so the JavaFX application thread never waits for the
+ * database. Every call runs on its own virtual thread. At most as many calls run at once as the {@link ConnectionPool}
+ * has connections, further calls wait for a permit instead of blocking a connection of the pool.
+ * <p>
+ * The results are delivered with <code>Platform.runLater()</code>, so the callbacks of the returned futures run on the
+ * JavaFX application thread and may update the UI directly. Cancelling a future interrupts its call if it has not
+ * finished yet, a call that is still waiting for a permit does not run at all.
+ * </p>
+ */
+public class DaoExecutor {
+
+    private static DaoExecutor instance;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("dao-", 0).factory());
+    private final Semaphore permits;
+    private final Executor callbackExecutor;
+
+    /**
+     * Creates an executor.
+     *
+     * @param maxConcurrentCalls Maximum number of calls that run at once.
+     * @param callbackExecutor   Executor the results are delivered on.
+     */
+    public DaoExecutor(int maxConcurrentCalls, Executor callbackExecutor) {
+        this.permits = new Semaphore(Math.max(1, maxConcurrentCalls), true);
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Returns the executor of the application. It is created on first use and runs as many calls at once as the
+     * connection pool has read connections plus the write connection.
+     *
+     * @return The DAO executor.
+     */
+    public static synchronized DaoExecutor getInstance() {
+        if (DaoExecutor.instance == null) {
+            DaoExecutor.instance = new DaoExecutor(ConnectionPool.getInstance().getMaxReadConnections() + 1,
+                    Platform::runLater);
+        }
+        return DaoExecutor.instance;
+    }
+
+    /**
+     * Stops the executor of the application. Running calls are interrupted, results that arrive later are dropped.
+     */
+    public static synchronized void shutdown() {
+        if (DaoExecutor.instance == null)
+            return;
+
+        DaoExecutor.instance.executor.shutdownNow();
+        DaoExecutor.instance = null;
+    }
+
+    /**
+     * Runs the given call in the background.
+     *
+     * @param call The DAO call.
+     * @param <R>  Type of the result.
+     * @return Future that is completed with the result of the call, or with its exception, on the callback executor.
+     */
+    public <R> CompletableFuture<R> submit(Callable<R> call) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = this.executor.submit(() -> this.run(call, result));
+        } catch (RejectedExecutionException exception) {
+            result.completeExceptionally(exception);
+            return result;
+        }
+
+        result.whenComplete((value, exception) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the given task in the background, for example a <code>javafx.concurrent.Task</code>, which reports its
+     * result on the JavaFX application thread on its own. A task that is cancelled while it waits for a permit does
+     * not run.
+     *
+     * @param task The task.
+     */
+    public void execute(Runnable task) {
+        this.executor.execute(() -> {
+            try {
+                this.permits.acquire();
+            } catch (InterruptedException exception) {
+                return;
+            }
+
+            try {
+                task.run();
+            } finally {
+                this.permits.release();
+            }
+        });
+    }
+
+    /**
+     * Runs the given call with a permit and delivers its result.
+     *
+     * @param call   The DAO call.
+     * @param result Future to complete.
+     * @param <R>    Type of the result.
+     */
+    private <R> void run(Callable<R> call, CompletableFuture<R> result) {
+        try {
+            this.permits.acquire();
+        } catch (InterruptedException exception) {
+            return;
+        }
+
+        try {
+            if (result.isDone())
+                return;
+
+            R value = call.call();
+            this.callbackExecutor.execute(() -> result.complete(value));
+        } catch (Exception exception) {
+            this.callbackExecutor.execute(() -> result.completeExceptionally(exception));
+        } finally {
+            this.permits.release();
+        }
+    }
+}
@@ -1,13 +1,68 @@
 package de.hitec.nhplus.datastorage;
 
+import de.hitec.nhplus.model.Caregiver;
+import de.hitec.nhplus.model.Entity;
+import de.hitec.nhplus.model.Medicine;
+import de.hitec.nhplus.model.Patient;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
- * The <code>DaoFactory</code> creates all DAOs. It is a singleton class.
+ * The <code>DaoFactory</code> creates all DAOs. It is a singleton class. All DAOs share the {@link ConnectionPool}, so
+ * reads run on the pooled read-only connections and writes on the single write connection.
+ * <p>
+ * Patients, caregivers and medicines are read far more often than they are written. Their DAOs share one
+ * {@link EntityCache} per table, sized by the {@link DatabaseProfile}. All DAOs share one {@link QueryCache} for the
+ * results of their list queries, a write to a table drops the results that read it.
+ * </p>
+ * <p>
+ * Every DAO call commits on its own. Calls that belong together run in a unit of work, see
+ * <code>inTransaction()</code>, which commits them at once.
+ * </p>
  */
 public class DaoFactory {
 
+    /**
+     * Work that calls several DAOs in one transaction.
+     *
+     * @param <R> Type of the result.
+     */
+    @FunctionalInterface
+    public interface UnitOfWork<R> {
+        R execute() throws SQLException;
+    }
+
     private static DaoFactory instance;
 
+    private final EntityCache<Patient> patientCache;
+    private final EntityCache<Caregiver> caregiverCache;
+    private final EntityCache<Medicine> medicineCache;
+    private final QueryCache queryCache;
+
     private DaoFactory() {
+        DatabaseProfile profile = DatabaseProfile.getInstance();
+        this.patientCache = createCache(profile);
+        this.caregiverCache = createCache(profile);
+        this.medicineCache = createCache(profile);
+        this.queryCache = profile.getQueryCacheSize() == 0 ? null
+                : new QueryCache(profile.getQueryCacheSize(), profile.getQueryCacheMaxRows());
+    }
+
+    /**
+     * Creates an entity cache with the size and time to live of the given profile.
+     *
+     * @param profile Profile with the cache settings.
+     * @param <T>     Type of the cached entities.
+     * @return The cache, <code>null</code> if the profile disables caching.
+     */
+    private static <T extends Entity> EntityCache<T> createCache(DatabaseProfile profile) {
+        if (profile.getEntityCacheSize() == 0)
+            return null;
+
+        return new EntityCache<>(profile.getEntityCacheSize(), profile.getEntityCacheTtlSeconds());
     }
 
     /**
@@ -15,20 +70,56 @@ public class DaoFactory {
      *
      * @return The singleton instance of the <code>DaoFactory</code>.
      */
-    public static DaoFactory getDaoFactory() {
+    public static synchronized DaoFactory getDaoFactory() {
         if (DaoFactory.instance == null) {
             DaoFactory.instance = new DaoFactory();
         }
         return DaoFactory.instance;
     }
 
+    /**
+     * Executes the given work in one transaction. All DAOs of the factory that are called by the work, on the calling
+     * thread, run on the write connection and join the transaction, so their changes are committed together with a
+     * single sync of the journal. If the work throws an exception, all changes are rolled back. DAO methods that
+     * report a failure by their return value do not roll back on their own, the work has to throw in that case.
+     * <p>
+     * Units of work can be nested, a nested unit runs in a savepoint and only rolls back its own changes when it
+     * fails. The entity and query caches are invalidated again once the transaction is finished, so other threads never
+     * keep uncommitted rows. The write connection is held until the work returns, keep the work short.
+     * </p>
+     *
+     * @param work The work to execute.
+     * @param <R>  Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or the transaction could not be committed.
+     */
+    public <R> R inTransaction(UnitOfWork<R> work) throws SQLException {
+        return ConnectionScope.transaction(ConnectionPool.getInstance(), work::execute);
+    }
+
+    /**
+     * Executes the given work in one transaction on the given connection, like <code>inTransaction(UnitOfWork)</code>.
+     * Used for DAOs that are created with a plain connection, for example on an in-memory database in tests.
+     *
+     * @param connection Connection the DAOs of the work were created with.
+     * @param work       The work to execute.
+     * @param <R>        Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or the transaction could not be committed.
+     */
+    public static <R> R inTransaction(Connection connection, UnitOfWork<R> work) throws SQLException {
+        return ConnectionScope.transaction(SingleConnectionProvider.of(connection), work::execute);
+    }
+
     /**
      * Creates a new <code>TreatmentDao</code> instance.
      *
      * @return The <code>TreatmentDao</code> instance.
      */
     public TreatmentDao createTreatmentDao() {
-        return new TreatmentDao(ConnectionBuilder.getConnection());
+        TreatmentDao dao = new TreatmentDao(ConnectionPool.getInstance());
+        dao.setQueryCache(this.queryCache);
+        return dao;
     }
 
     /**
@@ -37,7 +128,10 @@ public class DaoFactory {
      * @return The <code>PatientDao</code> instance.
      */
     public PatientDao createPatientDAO() {
-        return new PatientDao(ConnectionBuilder.getConnection());
+        PatientDao dao = new PatientDao(ConnectionPool.getInstance());
+        dao.setEntityCache(this.patientCache);
+        dao.setQueryCache(this.queryCache);
+        return dao;
     }
 
     /**
@@ -46,7 +140,10 @@ public class DaoFactory {
      * @return The <code>CaregiverDao</code> instance.
      */
     public CaregiverDao createCaregiverDAO() {
-        return new CaregiverDao(ConnectionBuilder.getConnection());
+        CaregiverDao dao = new CaregiverDao(ConnectionPool.getInstance());
+        dao.setEntityCache(this.caregiverCache);
+        dao.setQueryCache(this.queryCache);
+        return dao;
     }
 
     /**
@@ -55,7 +152,10 @@ public class DaoFactory {
      * @return The <code>MedicineDao</code> instance.
      */
     public MedicineDao createMedicineDAO() {
-        return new MedicineDao(ConnectionBuilder.getConnection());
+        MedicineDao dao = new MedicineDao(ConnectionPool.getInstance());
+        dao.setEntityCache(this.medicineCache);
+        dao.setQueryCache(this.queryCache);
+        return dao;
     }
 
     /**
@@ -64,6 +164,33 @@ public class DaoFactory {
      * @return The <code>UserDao</code> instance.
      */
     public UserDao createUserDAO() {
-        return new UserDao(ConnectionBuilder.getConnection());
+        UserDao dao = new UserDao(ConnectionPool.getInstance());
+        dao.setQueryCache(this.queryCache);
+        return dao;
+    }
+
+    /**
+     * Returns the counters of the entity caches, to size them for the number of residents.
+     *
+     * @return The counters by table name, empty if caching is disabled.
+     */
+    public Map<String, EntityCache.Statistics> getCacheStatistics() {
+        Map<String, EntityCache.Statistics> statistics = new LinkedHashMap<>();
+        if (this.patientCache != null)
+            statistics.put(PatientDao.TABLE_NAME, this.patientCache.getStatistics());
+        if (this.caregiverCache != null)
+            statistics.put(CaregiverDao.TABLE_NAME, this.caregiverCache.getStatistics());
+        if (this.medicineCache != null)
+            statistics.put(MedicineDao.TABLE_NAME, this.medicineCache.getStatistics());
+        return statistics;
+    }
+
+    /**
+     * Returns the query cache shared by all DAOs.
+     *
+     * @return The query cache, <code>null</code> if caching is disabled.
+     */
+    public QueryCache getQueryCache() {
+        return this.queryCache;
     }
 }
@@ -2,13 +2,26 @@ package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.Entity;
 import de.hitec.nhplus.model.Exceptions.CreateException;
+import de.hitec.nhplus.model.Exceptions.ReadException;
 import de.hitec.nhplus.model.Exceptions.UpdateException;
 import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract class for all DAOs. It defines methods to create, read, update and delete objects from the database.
@@ -18,29 +31,74 @@ import java.util.Optional;
  */
 // add TCreationData from Dao interface
 public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T, TCreationData> {
-    protected Connection connection;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_FETCH_SIZE = 256;
 
     /**
-     * Initializes the DAO class. It gets the connection from the <code>ConnectionBuilder</code>.
+     * Maximum number of ids in the IN-list of one query, well below the parameter limit of SQLite.
+     */
+    public static final int MAX_IDS_PER_QUERY = 512;
+
+    /**
+     * Table that stores how far the chunked purge of each table got, see <code>deleteArchivedChunk()</code>.
+     */
+    public static final String WATERMARK_TABLE = "purge_watermark";
+
+    /**
+     * Clause appended to insert and delete statements, so they return the affected row in the same round trip.
+     */
+    protected static final String RETURNING_ALL = " RETURNING *";
+
+    /**
+     * Maps all rows of a result set to a list.
+     *
+     * @param <R> Type of the rows.
+     */
+    @FunctionalInterface
+    protected interface ResultMapper<R> {
+        ArrayList<R> map(ResultSet result) throws SQLException;
+    }
+
+    private final ConnectionProvider connectionProvider;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private EntityCache<T> entityCache;
+    private QueryCache queryCache;
+
+    /**
+     * Initializes the DAO class with a single connection that is used for all reads and writes.
      *
      * @param connection Current connection to the database.
      */
     public DaoImp(Connection connection) {
-        this.connection = connection;
+        this(SingleConnectionProvider.of(connection));
     }
 
+    /**
+     * Initializes the DAO class. Every operation acquires its connection from the given provider and releases it
+     * once the operation is done.
+     *
+     * @param connectionProvider Provider of the read and write connections, usually the {@link ConnectionPool}.
+     */
+    public DaoImp(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * Creates the object with a single <code>INSERT ... RETURNING *</code> statement. The inserted row, including its
+     * generated id, is mapped directly from the result of the insert.
+     */
     @Override
     public T create(TCreationData data) {
         try {
-            getCreateStatement(data).executeUpdate();
-
-            var insertedId = getLastInsertedId();
-
-            Optional<T> entity = getById(insertedId);
-            if (entity.isEmpty())
-                throw new CreateException("Could not create new entity");
+            return write(() -> {
+                try (ResultSet result = getCreateStatement(data, true).executeQuery()) {
+                    if (!result.next())
+                        throw new CreateException("Could not create new entity");
 
-            return entity.get();
+                    return getInstanceFromResultSet(result);
+                }
+            });
         } catch (SQLException exception) {
             // creating a new object _should_ never fail
             // highlights underlying issue
@@ -48,57 +106,595 @@ public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T,
         }
     }
 
+    /**
+     * Creates all objects in one transaction. The inserts are sent to the database in JDBC batches of
+     * <code>getBatchSize()</code> rows. Afterward, the created rows are read back in a single query.
+     * <p>
+     * The write connection is held for the whole transaction, so no other insert can run in between. All tables use
+     * <code>AUTOINCREMENT</code> ids, therefore the new rows got consecutive ids ending with the last inserted id.
+     * The insert statements do not use <code>RETURNING</code>, since the driver rejects batched statements that
+     * return rows.
+     * </p>
+     */
+    @Override
+    public List<T> createAll(Collection<TCreationData> data) {
+        if (data.isEmpty())
+            return new ArrayList<>();
+
+        try {
+            return write(() -> inTransaction(() -> {
+                insertBatches(data);
+
+                long lastId = getLastInsertedId();
+                long firstId = lastId - data.size() + 1;
+
+                final String SQL = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumnName() + " BETWEEN ? AND ? " +
+                        "ORDER BY " + getIdColumnName();
+                List<T> entities = readList(SQL, firstId, lastId);
+                if (entities.size() != data.size())
+                    throw new CreateException("Could not create new entities");
+
+                return entities;
+            }));
+        } catch (SQLException exception) {
+            throw new CreateException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Inserts all objects in one transaction like <code>createAll()</code>, but does not read the created rows back.
+     * This is the fast path for bulk loads, where the created objects are not needed.
+     */
+    @Override
+    public int insertAll(Collection<TCreationData> data) {
+        if (data.isEmpty())
+            return 0;
+
+        try {
+            return write(() -> inTransaction(() -> {
+                insertBatches(data);
+                return data.size();
+            }));
+        } catch (SQLException exception) {
+            throw new CreateException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Sends the inserts of the given objects to the database in JDBC batches of <code>getBatchSize()</code> rows.
+     * Has to be called within a transaction.
+     *
+     * @param data Data of the objects to insert.
+     * @throws SQLException If an insert fails.
+     */
+    private void insertBatches(Collection<TCreationData> data) throws SQLException {
+        PreparedStatement statement = null;
+        int pending = 0;
+
+        for (TCreationData item : data) {
+            statement = getCreateStatement(item, false);
+            statement.addBatch();
+
+            if (++pending == this.batchSize) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Answers the lookup from the entity cache if one is set and holds the object, otherwise reads it from the database
+     * and caches it.
+     */
     @Override
     public Optional<T> getById(long id) {
+        EntityCache<T> cache = this.getReadableEntityCache();
+        long generation = 0;
+        if (cache != null) {
+            T cached = cache.get(id);
+            if (cached != null)
+                return Optional.of(cached);
+            generation = cache.getGeneration();
+        }
+
         try {
-            T object = null;
-            ResultSet result = getReadByIDStatement(id).executeQuery();
-            if (result.next()) {
-                object = getInstanceFromResultSet(result);
+            Optional<T> object = read(() -> {
+                try (ResultSet result = getReadByIDStatement(id).executeQuery()) {
+                    if (result.next()) {
+                        return Optional.of(getInstanceFromResultSet(result));
+                    }
+                }
+                return Optional.<T>empty();
+            });
+            if (cache != null && object.isPresent()) {
+                cache.put(object.get(), generation);
             }
-            return Optional.ofNullable(object);
+            return object;
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return Optional.empty();
     }
 
+    /**
+     * Reads the objects in chunks of at most <code>MAX_IDS_PER_QUERY</code> ids, each with one
+     * <code>WHERE id IN (...)</code> query. The IN-lists are padded to a power of two by repeating the last id, so
+     * only a handful of distinct statements end up in the statement cache. With an entity cache, only the objects
+     * missing in the cache are read.
+     */
+    @Override
+    public LinkedHashMap<Long, T> getByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        HashMap<Long, T> found = new HashMap<>();
+
+        EntityCache<T> cache = this.getReadableEntityCache();
+        long generation = cache == null ? 0 : cache.getGeneration();
+        List<Long> missingIds = distinctIds;
+        if (cache != null) {
+            missingIds = new ArrayList<>();
+            for (Long id : distinctIds) {
+                T cached = cache.get(id);
+                if (cached != null)
+                    found.put(id, cached);
+                else
+                    missingIds.add(id);
+            }
+        }
+
+        List<Long> idsToRead = missingIds;
+        try {
+            read(() -> {
+                for (int start = 0; start < idsToRead.size(); start += MAX_IDS_PER_QUERY) {
+                    List<Long> chunk = idsToRead.subList(start, Math.min(start + MAX_IDS_PER_QUERY, idsToRead.size()));
+                    int size = Math.max(1, Integer.highestOneBit(chunk.size() - 1) << 1);
+
+                    Object[] parameters = new Object[size];
+                    for (int i = 0; i < size; i++) {
+                        parameters[i] = chunk.get(Math.min(i, chunk.size() - 1));
+                    }
+
+                    final String SQL = "SELECT * FROM " + getTableName() + " WHERE " + getIdColumnName() + " IN (" +
+                            String.join(", ", Collections.nCopies(size, "?")) + ")";
+                    // the entity cache covers lookups by id, the IN-lists are not worth a place in the query cache
+                    for (T entity : query(SQL, this::getListFromResultSet, parameters)) {
+                        found.put(entity.getId(), entity);
+                        if (cache != null) {
+                            cache.put(entity, generation);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+
+        LinkedHashMap<Long, T> entities = new LinkedHashMap<>();
+        for (Long id : distinctIds) {
+            T entity = found.get(id);
+            if (entity != null)
+                entities.put(id, entity);
+        }
+        return entities;
+    }
+
     @Override
     public ArrayList<T> getAll() {
         try {
-            return getListFromResultSet(getReadAllStatement().executeQuery());
+            ConnectionScope.SqlWork<ArrayList<T>> query = () -> read(() -> {
+                try (ResultSet result = getReadAllStatement().executeQuery()) {
+                    return getListFromResultSet(result);
+                }
+            });
+
+            QueryCache cache = this.queryCache;
+            if (cache == null || ConnectionScope.isWriting())
+                return query.execute();
+            return cache.get("SELECT * FROM " + getTableName(), new Object[0], query);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
         return new ArrayList<>();
     }
 
+    @Override
+    public ArrayList<T> getPage(long afterId, int limit) {
+        try {
+            return readPage(null, afterId, limit);
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return stream("SELECT * FROM " + getTableName());
+    }
+
     @Override
     public T update(T entity) {
         try {
-            getUpdateStatement(entity).executeUpdate();
+            write(() -> getUpdateStatement(entity).executeUpdate());
             return entity;
         } catch (SQLException exception) {
             throw new UpdateException(exception.getMessage());
+        } finally {
+            this.invalidateCached(entity.getId());
         }
     }
 
+    /**
+     * Deletes the object with a single <code>DELETE ... RETURNING *</code> statement. The deleted row is mapped from
+     * the result of the delete.
+     */
     @Override
     public Optional<T> delete(long id) {
-        Optional<T> entity = getById(id);
+        try {
+            return write(() -> {
+                try (ResultSet result = getDeleteStatement(id).executeQuery()) {
+                    if (!result.next())
+                        return Optional.<T>empty();
 
-        if (entity.isPresent()) {
-            try {
-                getDeleteStatement(id).executeUpdate();
-                return entity;
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
+                    return Optional.of(getInstanceFromResultSet(result));
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            this.invalidateCached(id);
         }
 
         return Optional.empty();
     }
 
+    /**
+     * Executes the given work with a read connection. The connection is bound to the calling thread while the work
+     * runs, statements prepared with <code>prepareStatement()</code> are prepared on it.
+     *
+     * @param work The work to execute.
+     * @param <R>  Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or no connection is available.
+     */
+    protected <R> R read(ConnectionScope.SqlWork<R> work) throws SQLException {
+        return ConnectionScope.read(this.connectionProvider, work);
+    }
+
+    /**
+     * Executes the given work with the write connection. The connection is bound to the calling thread while the
+     * work runs, statements prepared with <code>prepareStatement()</code> are prepared on it. Afterward, the cached
+     * query results that depend on the written tables are dropped.
+     *
+     * @param work The work to execute.
+     * @param <R>  Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or no connection is available.
+     */
+    protected <R> R write(ConnectionScope.SqlWork<R> work) throws SQLException {
+        try {
+            return ConnectionScope.write(this.connectionProvider, work);
+        } finally {
+            this.invalidateQueries();
+        }
+    }
+
+    /**
+     * Executes the given work in a transaction on the write connection. The transaction is committed if the work
+     * succeeds and rolled back if it fails. If the connection is already in a transaction, for example in a unit of
+     * work of the {@link DaoFactory}, the work runs in a savepoint of it.
+     *
+     * @param work The work to execute.
+     * @param <R>  Type of the result.
+     * @return The result of the work.
+     * @throws SQLException If the work fails or the transaction could not be committed.
+     */
+    protected <R> R inTransaction(ConnectionScope.SqlWork<R> work) throws SQLException {
+        return ConnectionScope.transaction(this.connectionProvider, work);
+    }
+
+
+    /**
+     * Returns the number of rows <code>createAll()</code> sends to the database in one JDBC batch.
+     *
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Sets the number of rows <code>createAll()</code> sends to the database in one JDBC batch. Larger batches need
+     * fewer round trips but keep more bound rows in memory.
+     *
+     * @param batchSize The batch size, at least 1.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be at least 1");
+
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads a page of objects matching the given condition, ordered by id. The page is selected with the id of the
+     * last object of the previous page instead of an offset, so every page is found through the primary key, no matter
+     * how deep the page is.
+     *
+     * @param condition  SQL condition the objects have to match, <code>null</code> to read all objects.
+     * @param afterId    Id after which the page starts, <code>0</code> for the first page.
+     * @param limit      Maximum number of objects on the page.
+     * @param parameters Parameters to bind to the placeholders of the condition, in order.
+     * @return List of at most <code>limit</code> objects with an id greater than <code>afterId</code>.
+     * @throws SQLException If the query could not be executed.
+     */
+    protected ArrayList<T> readPage(String condition, long afterId, int limit, Object... parameters) throws SQLException {
+        final String SQL = "SELECT * FROM " + getTableName() + " WHERE " +
+                (condition == null ? "" : "(" + condition + ") AND ") +
+                getIdColumnName() + " > ? ORDER BY " + getIdColumnName() + " LIMIT ?";
+
+        Object[] allParameters = Arrays.copyOf(parameters, parameters.length + 2);
+        allParameters[parameters.length] = afterId;
+        allParameters[parameters.length + 1] = limit;
+        return readList(SQL, allParameters);
+    }
+
+    /**
+     * Returns the number of rows a stream fetches from the database at once.
+     *
+     * @return The fetch size.
+     */
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * Sets the number of rows a stream fetches from the database at once.
+     *
+     * @param fetchSize The fetch size, at least 1.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1)
+            throw new IllegalArgumentException("Fetch size must be at least 1");
+
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns the entity cache in front of <code>getById()</code> and <code>getByIds()</code>.
+     *
+     * @return The entity cache, <code>null</code> if lookups always go to the database.
+     */
+    public EntityCache<T> getEntityCache() {
+        return this.entityCache;
+    }
+
+    /**
+     * Sets the entity cache in front of <code>getById()</code> and <code>getByIds()</code>. The writes of this DAO
+     * invalidate the cached objects they change.
+     *
+     * @param entityCache The entity cache, <code>null</code> to read every lookup from the database.
+     */
+    public void setEntityCache(EntityCache<T> entityCache) {
+        this.entityCache = entityCache;
+    }
+
+    /**
+     * Returns the query cache for the list queries of this DAO.
+     *
+     * @return The query cache, <code>null</code> if every query goes to the database.
+     */
+    public QueryCache getQueryCache() {
+        return this.queryCache;
+    }
+
+    /**
+     * Sets the query cache for the list queries of this DAO. The cache can be shared by the DAOs of all tables, the
+     * writes of this DAO drop the results that depend on its tables.
+     *
+     * @param queryCache The query cache, <code>null</code> to run every query on the database.
+     */
+    public void setQueryCache(QueryCache queryCache) {
+        this.queryCache = queryCache;
+    }
+
+    /**
+     * Returns the entity cache for lookups, <code>null</code> while the calling thread holds the write connection. In
+     * a transaction, the cache might not hold the uncommitted changes, and rows read on the write connection must not
+     * be cached before they are committed.
+     *
+     * @return The entity cache or <code>null</code>.
+     */
+    private EntityCache<T> getReadableEntityCache() {
+        return ConnectionScope.isWriting() ? null : this.entityCache;
+    }
+
+    /**
+     * Returns the tables a write of this DAO may change besides its own table, for example through
+     * <code>ON DELETE CASCADE</code>.
+     *
+     * @return Names of the tables, empty by default.
+     */
+    protected List<String> getCascadingTables() {
+        return List.of();
+    }
+
+    /**
+     * Drops the cached query results that depend on the table of this DAO or a table it cascades to.
+     */
+    private void invalidateQueries() {
+        QueryCache cache = this.queryCache;
+        if (cache == null)
+            return;
+
+        ConnectionScope.afterTransaction(() -> {
+            cache.invalidate(getTableName());
+            for (String table : getCascadingTables()) {
+                cache.invalidate(table);
+            }
+        });
+    }
+
+    /**
+     * Removes the object with the given id from the entity cache, if there is one. In a transaction, it is removed
+     * once more when the transaction is finished.
+     *
+     * @param id Id of the changed object.
+     */
+    protected void invalidateCached(long id) {
+        EntityCache<T> cache = this.entityCache;
+        if (cache != null) {
+            ConnectionScope.afterTransaction(() -> cache.invalidate(id));
+        }
+    }
+
+    /**
+     * Removes all objects from the entity cache, if there is one. Used after writes that change an unknown set of rows.
+     */
+    protected void invalidateCache() {
+        EntityCache<T> cache = this.entityCache;
+        if (cache != null) {
+            ConnectionScope.afterTransaction(cache::invalidateAll);
+        }
+    }
+
+    /**
+     * Executes the given query with the given parameters and returns a stream over its rows. The rows are mapped to
+     * <code>T</code> lazily while the stream is consumed, so only the rows of the current fetch are held in memory.
+     * <p>
+     * The stream leases its own read connection and an uncached statement, since the cursor outlives the call. Both
+     * are released when the stream is closed or the last row was read. Streams have to be closed on the thread that
+     * opened them.
+     * </p>
+     *
+     * @param sql        SQL of the query.
+     * @param parameters Parameters to bind to the placeholders of the query, in order.
+     * @return Stream of <code>T</code> from the result of the query.
+     * @throws ReadException If the query could not be executed.
+     */
+    protected Stream<T> stream(String sql, Object... parameters) {
+        Connection connection;
+        try {
+            connection = this.connectionProvider.acquireReadConnection();
+        } catch (SQLException exception) {
+            throw new ReadException(exception.getMessage());
+        }
+
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(sql);
+            statement.setFetchSize(this.fetchSize);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+
+            Cursor cursor = new Cursor(connection, statement, statement.executeQuery());
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException exception) {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (SQLException closeException) {
+                    exception.addSuppressed(closeException);
+                }
+            }
+            this.connectionProvider.releaseReadConnection(connection);
+            throw new ReadException(exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns the prepared statement for the given SQL from the statement cache of the connection bound by
+     * <code>read()</code> or <code>write()</code>. The statement is only parsed on first use and reused afterwards.
+     * <p>
+     * The returned statement is owned by the cache and must not be closed. Result sets of the statement have to be
+     * closed after use.
+     * </p>
+     *
+     * @param sql SQL of the statement.
+     * @return The cached prepared statement.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    protected PreparedStatement prepareStatement(String sql) throws SQLException {
+        return StatementCache.forConnection(ConnectionScope.currentConnection()).prepare(sql);
+    }
+
+    /**
+     * Executes the given query with the given parameters and maps all rows to a list of <code>T</code>. The result
+     * set is closed before the method returns.
+     *
+     * @param sql        SQL of the query.
+     * @param parameters Parameters to bind to the placeholders of the query, in order.
+     * @return List of <code>T</code> from the result of the query.
+     * @throws SQLException If the query could not be executed.
+     */
+    protected ArrayList<T> readList(String sql, Object... parameters) throws SQLException {
+        return readList(sql, this::getListFromResultSet, parameters);
+    }
+
+    /**
+     * Executes the given query with the given parameters and maps the result set with the given mapper. With a query
+     * cache, the result is taken from the cache or cached, except while the thread holds the write connection, since
+     * it might read changes that are not committed yet.
+     *
+     * @param sql        SQL of the query.
+     * @param mapper     Maps all rows of the result set.
+     * @param parameters Parameters to bind to the placeholders of the query, in order.
+     * @param <R>        Type of the rows.
+     * @return List of the mapped rows.
+     * @throws SQLException If the query could not be executed.
+     */
+    protected <R> ArrayList<R> readList(String sql, ResultMapper<R> mapper, Object... parameters) throws SQLException {
+        QueryCache cache = this.queryCache;
+        if (cache == null || ConnectionScope.isWriting())
+            return query(sql, mapper, parameters);
+
+        return cache.get(sql, parameters, () -> query(sql, mapper, parameters));
+    }
+
+    /**
+     * Executes the given query with the given parameters on the database, without the query cache.
+     *
+     * @param sql        SQL of the query.
+     * @param mapper     Maps all rows of the result set.
+     * @param parameters Parameters to bind to the placeholders of the query, in order.
+     * @param <R>        Type of the rows.
+     * @return List of the mapped rows.
+     * @throws SQLException If the query could not be executed.
+     */
+    private <R> ArrayList<R> query(String sql, ResultMapper<R> mapper, Object... parameters) throws SQLException {
+        return read(() -> {
+            PreparedStatement statement = prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+
+            try (ResultSet result = statement.executeQuery()) {
+                return mapper.map(result);
+            }
+        });
+    }
+
+    /**
+     * Returns the name of the table the DAO works on.
+     *
+     * @return The name of the table.
+     */
+    protected abstract String getTableName();
+
+    /**
+     * Returns the name of the id column of the table the DAO works on.
+     *
+     * @return The name of the id column.
+     */
+    protected String getIdColumnName() {
+        return "id";
+    }
+
     /**
      * Returns the instance of <code>T</code> from the result set.
      *
@@ -118,12 +714,14 @@ public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T,
     protected abstract ArrayList<T> getListFromResultSet(ResultSet set) throws SQLException;
 
     /**
-     * Returns the prepared statement for creating a new object.
+     * Returns the prepared statement for creating a new object. If <code>returning</code> is set, the statement ends
+     * with <code>RETURNING_ALL</code> and has to be executed as a query.
      *
-     * @param t The object to create.
+     * @param t         The object to create.
+     * @param returning Whether the statement should return the inserted row.
      * @return The prepared statement for creating a new object.
      */
-    protected abstract PreparedStatement getCreateStatement(TCreationData t);
+    protected abstract PreparedStatement getCreateStatement(TCreationData t, boolean returning);
 
     /**
      * Returns the prepared statement for reading an object by its id.
@@ -149,7 +747,8 @@ public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T,
     protected abstract PreparedStatement getUpdateStatement(T t);
 
     /**
-     * Returns the prepared statement for deleting an object.
+     * Returns the prepared statement for deleting an object. The statement ends with <code>RETURNING_ALL</code> and
+     * has to be executed as a query.
      *
      * @param key The id of the object to delete.
      * @return The prepared statement for deleting an object.
@@ -157,13 +756,14 @@ public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T,
     protected abstract PreparedStatement getDeleteStatement(long key);
 
     /**
-     * Helper method to get the last inserted id.
+     * Helper method to get the last inserted id of the connection bound by <code>write()</code>.
      *
      * @return The id of the last inserted entity into the database.
      */
-    private int getLastInsertedId() {
-        try {
-            return this.connection.prepareStatement("SELECT last_insert_rowid();").executeQuery().getInt(1);
+    private long getLastInsertedId() {
+        try (ResultSet result = prepareStatement("SELECT last_insert_rowid();").executeQuery()) {
+            if (result.next())
+                return result.getLong(1);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -178,16 +778,172 @@ public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T,
      * @param archivedOn Date to set the archivedOn field to.
      */
     private void setArchivedOn(String tableName, long id, LocalDate archivedOn) {
-        String archivedOnString = archivedOn == null ? null : DateConverter.convertLocalDateToString(archivedOn);
+        Long archivedOnDay = archivedOn == null ? null : DateConverter.convertLocalDateToEpochDay(archivedOn);
         try {
             final String SQL = "UPDATE " + tableName + " SET archivedOn = ? WHERE id = ?";
-            PreparedStatement preparedStatement = this.connection.prepareStatement(SQL);
-            preparedStatement.setString(1, archivedOnString);
-            preparedStatement.setLong(2, id);
-            preparedStatement.executeUpdate();
+            write(() -> {
+                PreparedStatement preparedStatement = prepareStatement(SQL);
+                preparedStatement.setObject(1, archivedOnDay);
+                preparedStatement.setLong(2, id);
+                return preparedStatement.executeUpdate();
+            });
         } catch (SQLException exception) {
             exception.printStackTrace();
+        } finally {
+            if (tableName.equals(getTableName())) {
+                this.invalidateCached(id);
+            } else if (this.queryCache != null) {
+                QueryCache cache = this.queryCache;
+                ConnectionScope.afterTransaction(() -> cache.invalidate(tableName));
+            }
+        }
+    }
+
+    /**
+     * Deletes the next chunk of objects that were archived before the given date. Has to be overridden by DAOs whose
+     * objects might have to be kept, see <code>deleteArchivedChunk(LocalDate, int, String, Object...)</code>.
+     *
+     * @param cutoff Objects archived before this date are deleted.
+     * @param limit  Maximum number of archived objects the chunk looks at.
+     * @return The result of the chunk.
+     * @throws SQLException If the chunk could not be deleted, the chunk is rolled back then.
+     */
+    public PurgeChunk deleteArchivedChunk(LocalDate cutoff, int limit) throws SQLException {
+        return deleteArchivedChunk(cutoff, limit, null);
+    }
+
+    /**
+     * Deletes the next chunk of objects that were archived before the given date, in one transaction. The archived
+     * objects are processed ordered by <code>archivedOn</code> and id. The position of the last processed object is
+     * stored as watermark in the same transaction, so an interrupted purge continues after the last committed chunk.
+     * Once all archived objects are processed, the watermark is removed.
+     *
+     * @param cutoff         Objects archived before this date are deleted.
+     * @param limit          Maximum number of archived objects the chunk looks at.
+     * @param keepCondition  SQL condition of objects that must not be deleted yet, <code>null</code> to delete all.
+     * @param keepParameters Parameters to bind to the placeholders of the keep condition, in order.
+     * @return The result of the chunk.
+     * @throws SQLException If the chunk could not be deleted, the chunk is rolled back then.
+     */
+    protected PurgeChunk deleteArchivedChunk(LocalDate cutoff, int limit, String keepCondition, Object... keepParameters)
+            throws SQLException {
+        long cutoffDay = DateConverter.convertLocalDateToEpochDay(cutoff);
+        final String CANDIDATES = "archivedOn IS NOT NULL AND archivedOn < ? AND (archivedOn, id) > (?, ?)";
+
+        try {
+            return write(() -> inTransaction(() -> {
+                long[] watermark = readWatermark();
+
+                // find where this chunk ends
+                long lastArchivedOn = 0;
+                long lastId = 0;
+                int processed = 0;
+                PreparedStatement select = prepareStatement("SELECT archivedOn, id FROM " + getTableName() + " WHERE " +
+                        CANDIDATES + " ORDER BY archivedOn, id LIMIT ?");
+                select.setLong(1, cutoffDay);
+                select.setLong(2, watermark[0]);
+                select.setLong(3, watermark[1]);
+                select.setInt(4, limit);
+                try (ResultSet result = select.executeQuery()) {
+                    while (result.next()) {
+                        lastArchivedOn = result.getLong(1);
+                        lastId = result.getLong(2);
+                        processed++;
+                    }
+                }
+
+                if (processed == 0) {
+                    resetPurgeWatermark();
+                    return new PurgeChunk(0, 0, true);
+                }
+
+                PreparedStatement delete = prepareStatement("DELETE FROM " + getTableName() + " WHERE " + CANDIDATES +
+                        " AND (archivedOn, id) <= (?, ?)" + (keepCondition == null ? "" : " AND NOT (" + keepCondition + ")"));
+                delete.setLong(1, cutoffDay);
+                delete.setLong(2, watermark[0]);
+                delete.setLong(3, watermark[1]);
+                delete.setLong(4, lastArchivedOn);
+                delete.setLong(5, lastId);
+                for (int i = 0; i < keepParameters.length; i++) {
+                    delete.setObject(i + 6, keepParameters[i]);
+                }
+                int deleted = delete.executeUpdate();
+
+                boolean finished = processed < limit;
+                if (finished) {
+                    resetPurgeWatermark();
+                } else {
+                    PreparedStatement save = prepareStatement("INSERT INTO " + WATERMARK_TABLE +
+                            " (tableName, archivedOn, id) VALUES (?, ?, ?) " +
+                            "ON CONFLICT (tableName) DO UPDATE SET archivedOn = excluded.archivedOn, id = excluded.id");
+                    save.setString(1, getTableName());
+                    save.setLong(2, lastArchivedOn);
+                    save.setLong(3, lastId);
+                    save.executeUpdate();
+                }
+
+                return new PurgeChunk(processed, deleted, finished);
+            }));
+        } finally {
+            // the purged objects are not known one by one
+            this.invalidateCache();
+        }
+    }
+
+    /**
+     * Counts the objects archived before the given date that the chunked purge has not processed yet. Serves as an
+     * estimate of the remaining work, since objects that have to be kept are counted as well.
+     *
+     * @param cutoff Objects archived before this date are counted.
+     * @return The number of archived objects after the watermark.
+     * @throws SQLException If the objects could not be counted.
+     */
+    public long countArchivedAfterWatermark(LocalDate cutoff) throws SQLException {
+        long cutoffDay = DateConverter.convertLocalDateToEpochDay(cutoff);
+        return read(() -> {
+            long[] watermark = readWatermark();
+
+            PreparedStatement statement = prepareStatement("SELECT count(*) FROM " + getTableName() + " WHERE " +
+                    "archivedOn IS NOT NULL AND archivedOn < ? AND (archivedOn, id) > (?, ?)");
+            statement.setLong(1, cutoffDay);
+            statement.setLong(2, watermark[0]);
+            statement.setLong(3, watermark[1]);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getLong(1) : 0L;
+            }
+        });
+    }
+
+    /**
+     * Removes the watermark of the chunked purge, so the next purge starts with the oldest archived object.
+     *
+     * @throws SQLException If the watermark could not be removed.
+     */
+    public void resetPurgeWatermark() throws SQLException {
+        write(() -> {
+            PreparedStatement statement = prepareStatement("DELETE FROM " + WATERMARK_TABLE + " WHERE tableName = ?");
+            statement.setString(1, getTableName());
+            return statement.executeUpdate();
+        });
+    }
+
+    /**
+     * Reads the watermark of the chunked purge of this table. Without a watermark, the position before the oldest
+     * archived object is returned.
+     *
+     * @return The <code>archivedOn</code> and the id of the last processed object.
+     * @throws SQLException If the watermark could not be read.
+     */
+    private long[] readWatermark() throws SQLException {
+        PreparedStatement statement = prepareStatement("SELECT archivedOn, id FROM " + WATERMARK_TABLE +
+                " WHERE tableName = ?");
+        statement.setString(1, getTableName());
+        try (ResultSet result = statement.executeQuery()) {
+            if (result.next())
+                return new long[]{result.getLong(1), result.getLong(2)};
         }
+        // no archived object is stored with a smaller epoch day
+        return new long[]{Long.MIN_VALUE, 0};
     }
 
     /**
@@ -209,4 +965,68 @@ public abstract class DaoImp<T extends Entity, TCreationData> implements Dao<T,
     public void restore(String tableName, long id) {
         setArchivedOn(tableName, id, null);
     }
+
+    /**
+     * Spliterator over the rows of an open result set. Owns the statement and the read connection of the result set
+     * and releases them once it is closed.
+     */
+    private final class Cursor extends Spliterators.AbstractSpliterator<T> {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet result;
+        private boolean closed = false;
+
+        /**
+         * Creates a cursor over the given result set.
+         *
+         * @param connection Read connection the statement was prepared on.
+         * @param statement  Statement the result set belongs to.
+         * @param result     Result set to read the rows from.
+         */
+        private Cursor(Connection connection, PreparedStatement statement, ResultSet result) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.connection = connection;
+            this.statement = statement;
+            this.result = result;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (this.closed)
+                return false;
+
+            try {
+                if (!this.result.next()) {
+                    close();
+                    return false;
+                }
+
+                action.accept(getInstanceFromResultSet(this.result));
+                return true;
+            } catch (SQLException exception) {
+                close();
+                throw new ReadException(exception.getMessage());
+            } catch (RuntimeException exception) {
+                close();
+                throw exception;
+            }
+        }
+
+        /**
+         * Closes the result set and the statement and releases the connection. Does nothing if already closed.
+         */
+        private void close() {
+            if (this.closed)
+                return;
+
+            this.closed = true;
+            // closes the result set first and the statement even if closing the result set fails
+            try (this.statement; this.result) {
+            } catch (SQLException exception) {
+                exception.printStackTrace();
+            } finally {
+                DaoImp.this.connectionProvider.releaseReadConnection(this.connection);
+            }
+        }
+    }
 }
@@ -0,0 +1,179 @@
+package de.hitec.nhplus.datastorage;
+
+import de.hitec.nhplus.utils.Settings;
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static de.hitec.nhplus.utils.Settings.readEnum;
+import static de.hitec.nhplus.utils.Settings.readNumber;
+
+/**
+ * The <code>DatabaseProfile</code> holds the SQLite settings that are applied to every connection: journal mode,
+ * synchronous mode, page cache size, memory mapped I/O, temp store and busy timeout, as well as the size of the
+ * connection pool and of the entity caches.
+ * <p>
+ * The defaults are read from <code>database.properties</code> on the class path. A <code>database.properties</code>
+ * file in the <code>db</code> folder overrides single values of the defaults.
+ * </p>
+ */
+public class DatabaseProfile {
+
+    private static final String[] REPORTED_PRAGMAS = {
+            "journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "busy_timeout"
+    };
+
+    private static DatabaseProfile instance;
+
+    private final SQLiteConfig.JournalMode journalMode;
+    private final SQLiteConfig.SynchronousMode synchronous;
+    private final int cacheSize;
+    private final long mmapSize;
+    private final SQLiteConfig.TempStore tempStore;
+    private final int busyTimeout;
+    private final int readConnections;
+    private final int entityCacheSize;
+    private final long entityCacheTtlSeconds;
+    private final int queryCacheSize;
+    private final int queryCacheMaxRows;
+
+    /**
+     * Creates a profile from the given properties. Missing or invalid values fall back to the SQLite defaults.
+     *
+     * @param properties Properties to read the settings from.
+     */
+    DatabaseProfile(Properties properties) {
+        this.journalMode = readEnum(properties, "journal_mode", SQLiteConfig.JournalMode.class, SQLiteConfig.JournalMode.DELETE);
+        this.synchronous = readEnum(properties, "synchronous", SQLiteConfig.SynchronousMode.class, SQLiteConfig.SynchronousMode.FULL);
+        this.cacheSize = (int) readNumber(properties, "cache_size", -2000);
+        this.mmapSize = readNumber(properties, "mmap_size", 0);
+        this.tempStore = readEnum(properties, "temp_store", SQLiteConfig.TempStore.class, SQLiteConfig.TempStore.DEFAULT);
+        this.busyTimeout = (int) readNumber(properties, "busy_timeout", 3000);
+        this.readConnections = Math.max(1, (int) readNumber(properties, "read_connections", 4));
+        this.entityCacheSize = Math.max(0, (int) readNumber(properties, "entity_cache_size", 0));
+        this.entityCacheTtlSeconds = Math.max(0, readNumber(properties, "entity_cache_ttl_seconds", 0));
+        this.queryCacheSize = Math.max(0, (int) readNumber(properties, "query_cache_size", 0));
+        this.queryCacheMaxRows = Math.max(0, (int) readNumber(properties, "query_cache_max_rows", 10000));
+    }
+
+    /**
+     * Returns the profile of the application. It is loaded on first use.
+     *
+     * @return The database profile.
+     */
+    public static synchronized DatabaseProfile getInstance() {
+        if (DatabaseProfile.instance == null) {
+            DatabaseProfile.instance = new DatabaseProfile(Settings.load("database.properties"));
+        }
+        return DatabaseProfile.instance;
+    }
+
+    /**
+     * Applies the profile to the configuration of a new connection. The journal mode is persistent in the database
+     * file and can only be changed by a connection that is allowed to write, so it is skipped for read-only
+     * connections.
+     *
+     * @param configuration Configuration of the connection.
+     * @param readOnly      Whether the connection is opened read-only.
+     */
+    public void apply(SQLiteConfig configuration, boolean readOnly) {
+        if (!readOnly) {
+            configuration.setJournalMode(this.journalMode);
+        }
+        configuration.setSynchronous(this.synchronous);
+        configuration.setCacheSize(this.cacheSize);
+        configuration.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(this.mmapSize));
+        configuration.setTempStore(this.tempStore);
+        configuration.setBusyTimeout(this.busyTimeout);
+    }
+
+    /**
+     * Reads the settings that are actually in effect on the given connection. SQLite silently ignores some settings,
+     * for example WAL on an in-memory database, so this is what gets reported at startup.
+     *
+     * @param connection Connection to read the settings from.
+     * @return The settings in effect, formatted as <code>pragma=value</code> pairs.
+     * @throws SQLException If the settings could not be read.
+     */
+    public String describe(Connection connection) throws SQLException {
+        StringBuilder description = new StringBuilder();
+        try (Statement statement = connection.createStatement()) {
+            for (String pragma : REPORTED_PRAGMAS) {
+                try (ResultSet result = statement.executeQuery("PRAGMA " + pragma)) {
+                    if (!description.isEmpty()) {
+                        description.append(", ");
+                    }
+                    description.append(pragma).append('=').append(result.next() ? result.getString(1) : "?");
+                }
+            }
+        }
+        return description.append(", read_connections=").append(this.readConnections)
+                .append(", entity_cache_size=").append(this.entityCacheSize)
+                .append(", entity_cache_ttl_seconds=").append(this.entityCacheTtlSeconds)
+                .append(", query_cache_size=").append(this.queryCacheSize)
+                .append(", query_cache_max_rows=").append(this.queryCacheMaxRows).toString();
+    }
+
+    public SQLiteConfig.JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public SQLiteConfig.SynchronousMode getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public SQLiteConfig.TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public int getBusyTimeout() {
+        return busyTimeout;
+    }
+
+    public int getReadConnections() {
+        return readConnections;
+    }
+
+    public int getEntityCacheSize() {
+        return entityCacheSize;
+    }
+
+    public long getEntityCacheTtlSeconds() {
+        return entityCacheTtlSeconds;
+    }
+
+    public int getQueryCacheSize() {
+        return queryCacheSize;
+    }
+
+    public int getQueryCacheMaxRows() {
+        return queryCacheMaxRows;
+    }
+
+    @Override
+    public String toString() {
+        return "journal_mode=" + this.journalMode +
+                ", synchronous=" + this.synchronous +
+                ", cache_size=" + this.cacheSize +
+                ", mmap_size=" + this.mmapSize +
+                ", temp_store=" + this.tempStore +
+                ", busy_timeout=" + this.busyTimeout +
+                ", read_connections=" + this.readConnections +
+                ", entity_cache_size=" + this.entityCacheSize +
+                ", entity_cache_ttl_seconds=" + this.entityCacheTtlSeconds +
+                ", query_cache_size=" + this.queryCacheSize +
+                ", query_cache_max_rows=" + this.queryCacheMaxRows;
+    }
+}
@@ -0,0 +1,183 @@
+package de.hitec.nhplus.datastorage;
+
+import de.hitec.nhplus.model.Entity;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The <code>EntityCache</code> keeps recently read entities of one table in memory, so repeated lookups by id do not
+ * go to the database. It holds at most <code>maxEntries</code> entities and evicts the least recently used one when it
+ * is full. With a time to live, entities are also evicted once they are older than that.
+ * <p>
+ * The cache is shared by all DAOs of a table, see {@link DaoFactory}. The DAOs invalidate an entity whenever they
+ * write it. Cached entities are shared instances, callers that change an entity have to write it with
+ * <code>update()</code>, which invalidates it.
+ * </p>
+ *
+ * @param <T> Type of the cached entities.
+ */
+public class EntityCache<T extends Entity> {
+
+    /**
+     * Counters of a cache.
+     *
+     * @param size      Number of cached entities.
+     * @param hits      Number of lookups that were answered from the cache.
+     * @param misses    Number of lookups that had to go to the database.
+     * @param evictions Number of entities evicted because the cache was full or they had expired.
+     */
+    public record Statistics(int size, long hits, long misses, long evictions) {
+        /**
+         * Returns the share of lookups answered from the cache.
+         *
+         * @return The hit rate between <code>0</code> and <code>1</code>, <code>0</code> without lookups.
+         */
+        public double hitRate() {
+            long lookups = this.hits + this.misses;
+            return lookups == 0 ? 0 : (double) this.hits / lookups;
+        }
+    }
+
+    private record Entry<T>(T entity, long loadedAt) {
+    }
+
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<Long, Entry<T>> entries;
+
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxEntries        Maximum number of cached entities.
+     * @param timeToLiveSeconds Seconds an entity stays in the cache, <code>0</code> to keep it until it is evicted or
+     *                          invalidated.
+     */
+    public EntityCache(int maxEntries, long timeToLiveSeconds) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.timeToLiveNanos = Math.max(0, timeToLiveSeconds) * 1_000_000_000L;
+        // access order turns the map into an LRU list, the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<T>> eldest) {
+                if (size() <= EntityCache.this.maxEntries)
+                    return false;
+
+                EntityCache.this.evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached entity with the given id and counts the lookup as hit or miss.
+     *
+     * @param id Id of the entity.
+     * @return The cached entity, <code>null</code> if it is not cached or expired.
+     */
+    public synchronized T get(long id) {
+        Entry<T> entry = this.entries.get(id);
+        if (entry != null && this.isExpired(entry, System.nanoTime())) {
+            this.entries.remove(id);
+            this.evictions++;
+            entry = null;
+        }
+
+        if (entry == null) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return entry.entity();
+    }
+
+    /**
+     * Returns the current generation of the cache. Read it before loading an entity from the database and pass it to
+     * <code>put()</code>, so an entity that was invalidated while it was loaded does not end up in the cache.
+     *
+     * @return The generation, it changes with every invalidation.
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Caches the given entity, unless the cache was invalidated since the given generation.
+     *
+     * @param entity     Entity loaded from the database.
+     * @param generation Generation of the cache before the entity was loaded.
+     */
+    public synchronized void put(T entity, long generation) {
+        if (generation != this.generation)
+            return;
+
+        this.entries.put(entity.getId(), new Entry<>(entity, System.nanoTime()));
+    }
+
+    /**
+     * Removes the entity with the given id from the cache.
+     *
+     * @param id Id of the entity.
+     */
+    public synchronized void invalidate(long id) {
+        this.generation++;
+        this.entries.remove(id);
+    }
+
+    /**
+     * Removes all entities from the cache. Used after writes that change an unknown set of rows.
+     */
+    public synchronized void invalidateAll() {
+        this.generation++;
+        this.entries.clear();
+    }
+
+    /**
+     * Removes the expired entities from the cache.
+     */
+    public synchronized void evictExpired() {
+        if (this.timeToLiveNanos == 0)
+            return;
+
+        long now = System.nanoTime();
+        for (Iterator<Entry<T>> iterator = this.entries.values().iterator(); iterator.hasNext(); ) {
+            if (this.isExpired(iterator.next(), now)) {
+                iterator.remove();
+                this.evictions++;
+            }
+        }
+    }
+
+    /**
+     * Returns the counters of the cache.
+     *
+     * @return The current counters.
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(this.entries.size(), this.hits, this.misses, this.evictions);
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    private boolean isExpired(Entry<T> entry, long now) {
+        return this.timeToLiveNanos > 0 && now - entry.loadedAt() >= this.timeToLiveNanos;
+    }
+
+    @Override
+    public String toString() {
+        Statistics statistics = this.getStatistics();
+        return "size=" + statistics.size() + "/" + this.maxEntries +
+                ", hits=" + statistics.hits() +
+                ", misses=" + statistics.misses() +
+                ", evictions=" + statistics.evictions() +
+                String.format(", hit_rate=%.2f", statistics.hitRate());
+    }
+}
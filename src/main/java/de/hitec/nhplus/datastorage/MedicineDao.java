@@ -2,6 +2,7 @@ package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.CreationData.MedicineCreationData;
 import de.hitec.nhplus.model.Medicine;
+import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -16,6 +17,8 @@ import java.util.Optional;
  */
 public class MedicineDao extends DaoImp<Medicine, MedicineCreationData> {
 
+    public static final String TABLE_NAME = "medicine";
+
     /**
      * The constructor initiates an object of <code>MedicineDao</code> and passes the connection to its super class.
      *
@@ -25,16 +28,35 @@ public class MedicineDao extends DaoImp<Medicine, MedicineCreationData> {
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>MedicineDao</code> that acquires its connections from the given provider.
+     *
+     * @param connectionProvider Provider of the connections to execute the SQL-statements.
+     */
+    public MedicineDao(ConnectionProvider connectionProvider) {
+        super(connectionProvider);
+    }
+
+    @Override
+    protected String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    protected String getIdColumnName() {
+        return "medicineId";
+    }
+
     @Override
-    protected PreparedStatement getCreateStatement(MedicineCreationData medicine) {
+    protected PreparedStatement getCreateStatement(MedicineCreationData medicine, boolean returning) {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO medicine (name, storage, expirationDate) " +
-                    "VALUES (?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "VALUES (?, ?, ?)" + (returning ? RETURNING_ALL : "");
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, medicine.name());
             preparedStatement.setString(2, medicine.storage());
-            preparedStatement.setString(3, medicine.expirationDate().toString());
+            preparedStatement.setLong(3, DateConverter.convertLocalDateToEpochDay(medicine.expirationDate()));
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -46,7 +68,7 @@ public class MedicineDao extends DaoImp<Medicine, MedicineCreationData> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM medicine WHERE medicineId = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, key);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -64,7 +86,7 @@ public class MedicineDao extends DaoImp<Medicine, MedicineCreationData> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM medicine";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -91,10 +113,10 @@ public class MedicineDao extends DaoImp<Medicine, MedicineCreationData> {
                     "storage = ?, " +
                     "expirationDate = ? " +
                     "WHERE medicineId = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, medicine.getName());
             preparedStatement.setString(2, medicine.getStorage());
-            preparedStatement.setString(3, medicine.getExpirationDate().toString());
+            preparedStatement.setLong(3, DateConverter.convertLocalDateToEpochDay(medicine.getExpirationDate()));
             preparedStatement.setLong(4, medicine.getId());
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -106,8 +128,8 @@ public class MedicineDao extends DaoImp<Medicine, MedicineCreationData> {
     protected PreparedStatement getDeleteStatement(long key) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "DELETE FROM medicine WHERE medicineId = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "DELETE FROM medicine WHERE medicineId = ?" + RETURNING_ALL;
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, key);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -1,12 +1,15 @@
 package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.CreationData.PatientCreationData;
+import de.hitec.nhplus.model.Exceptions.UpdateException;
 import de.hitec.nhplus.model.Patient;
 import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implements the Interface <code>DaoImp</code>. Overrides methods to generate specific <code>PreparedStatements</code>,
@@ -17,6 +20,10 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
     // todo: use this variable everywhere
     public static final String TABLE_NAME = "patient";
 
+    // Patients referenced by a treatment that is not archived or was archived on or after the cutoff have to be kept
+    private static final String KEEP_CONDITION = "EXISTS (SELECT 1 FROM treatment WHERE treatment.patientId = patient.id " +
+            "AND (treatment.archivedOn IS NULL OR treatment.archivedOn >= ?))";
+
     /**
      * The constructor initiates an object of <code>PatientDao</code> and passes the connection to its super class.
      *
@@ -26,25 +33,40 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>PatientDao</code> that acquires its connections from the given provider.
+     *
+     * @param connectionProvider Provider of the connections to execute the SQL-statements.
+     */
+    public PatientDao(ConnectionProvider connectionProvider) {
+        super(connectionProvider);
+    }
+
+    @Override
+    protected String getTableName() {
+        return TABLE_NAME;
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to persist the given object of <code>Patient</code>.
      *
-     * @param patient Object of <code>Patient</code> to persist.
+     * @param patient   Object of <code>Patient</code> to persist.
+     * @param returning Whether the statement should return the inserted row.
      * @return <code>PreparedStatement</code> to insert the given patient.
      */
     @Override
-    protected PreparedStatement getCreateStatement(PatientCreationData patient) {
+    protected PreparedStatement getCreateStatement(PatientCreationData patient, boolean returning) {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO patient (firstname, surname, dateOfBirth, carelevel, roomnumber, archivedOn)" +
-                    "VALUES (?, ?, ?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "VALUES (?, ?, ?, ?, ?, ?)" + (returning ? RETURNING_ALL : "");
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, patient.firstName());
             preparedStatement.setString(2, patient.surname());
-            preparedStatement.setString(3, patient.dateOfBirth().toString());
+            preparedStatement.setLong(3, DateConverter.convertLocalDateToEpochDay(patient.dateOfBirth()));
             preparedStatement.setString(4, patient.careLevel());
             preparedStatement.setString(5, patient.roomNumber());
-            preparedStatement.setString(6, patient.archivedOn() == null ? null : patient.archivedOn().toString());
+            preparedStatement.setObject(6, patient.archivedOn() == null ? null : DateConverter.convertLocalDateToEpochDay(patient.archivedOn()));
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -62,7 +84,7 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM patient WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -81,6 +103,16 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
         return Patient.fromResultSet(result);
     }
 
+    /**
+     * Deleting a patient deletes its treatments through <code>ON DELETE CASCADE</code>.
+     *
+     * @return The treatment table.
+     */
+    @Override
+    protected List<String> getCascadingTables() {
+        return List.of(TreatmentDao.TABLE_NAME);
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to query all patients.
      *
@@ -91,7 +123,7 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
         PreparedStatement statement = null;
         try {
             final String SQL = "SELECT * FROM patient";
-            statement = this.connection.prepareStatement(SQL);
+            statement = this.prepareStatement(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -106,9 +138,7 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
     public ArrayList<Patient> getAllArchived() {
         try {
             final String SQL = "SELECT * FROM patient WHERE archivedOn IS NOT NULL";
-            ResultSet result = this.connection.prepareStatement(SQL).executeQuery();
-
-            return getListFromResultSet(result);
+            return readList(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -124,9 +154,42 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
     public ArrayList<Patient> getAllNotArchived() {
         try {
             final String SQL = "SELECT * FROM patient WHERE archivedOn IS NULL";
-            ResultSet result = this.connection.prepareStatement(SQL).executeQuery();
+            return readList(SQL);
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Streams all archived patients from the database. The stream has to be closed after use.
+     *
+     * @return Stream of all patients that are archived.
+     */
+    public Stream<Patient> streamAllArchived() {
+        return stream("SELECT * FROM patient WHERE archivedOn IS NOT NULL");
+    }
+
+    /**
+     * Streams all not archived patients from the database. The stream has to be closed after use.
+     *
+     * @return Stream of all patients that are not archived.
+     */
+    public Stream<Patient> streamAllNotArchived() {
+        return stream("SELECT * FROM patient WHERE archivedOn IS NULL");
+    }
 
-            return getListFromResultSet(result);
+    /**
+     * Gets a page of not archived patients from the database, ordered by id.
+     *
+     * @param afterId Id after which the page starts, <code>0</code> for the first page.
+     * @param limit   Maximum number of patients on the page.
+     * @return Not archived patients with an id greater than <code>afterId</code>.
+     */
+    public ArrayList<Patient> getPageNotArchived(long afterId, int limit) {
+        try {
+            return readPage("archivedOn IS NULL", afterId, limit);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -171,10 +234,11 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
                             "carelevel = ?, " +
                             "roomnumber = ? " +
                             "WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, patient.getFirstName());
             preparedStatement.setString(2, patient.getSurname());
-            preparedStatement.setString(3, patient.getDateOfBirth());
+            preparedStatement.setLong(3, DateConverter.convertLocalDateToEpochDay(
+                    DateConverter.convertStringToLocalDate(patient.getDateOfBirth())));
             preparedStatement.setString(4, patient.getCareLevel());
             preparedStatement.setString(5, patient.getRoomNumber());
             preparedStatement.setLong(6, patient.getId());
@@ -188,14 +252,14 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
      * Generates a <code>PreparedStatement</code> to delete a patient with the given id.
      *
      * @param pid Id of the patient to delete.
-     * @return <code>PreparedStatement</code> to delete patient with the given id.
+     * @return <code>PreparedStatement</code> to delete patient with the given id, returning the deleted row.
      */
     @Override
     protected PreparedStatement getDeleteStatement(long pid) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "DELETE FROM patient WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "DELETE FROM patient WHERE id = ?" + RETURNING_ALL;
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -203,6 +267,47 @@ public class PatientDao extends DaoImp<Patient, PatientCreationData> {
         return preparedStatement;
     }
 
+    /**
+     * Deletes all patients that were archived before the given date and are not referenced by a treatment that has to
+     * be kept, that is a treatment which is not archived or was archived on or after the given date. Runs as a single
+     * statement.
+     *
+     * @param cutoff Patients archived before this date are deleted.
+     * @return The number of deleted patients.
+     * @throws UpdateException If the patients could not be deleted.
+     */
+    public int deleteArchivedBefore(LocalDate cutoff) {
+        long cutoffDay = DateConverter.convertLocalDateToEpochDay(cutoff);
+        try {
+            final String SQL = "DELETE FROM patient WHERE archivedOn IS NOT NULL AND archivedOn < ? " +
+                    "AND NOT " + KEEP_CONDITION;
+            return write(() -> {
+                PreparedStatement preparedStatement = this.prepareStatement(SQL);
+                preparedStatement.setLong(1, cutoffDay);
+                preparedStatement.setLong(2, cutoffDay);
+                return preparedStatement.executeUpdate();
+            });
+        } catch (SQLException exception) {
+            throw new UpdateException(exception.getMessage());
+        } finally {
+            this.invalidateCache();
+        }
+    }
+
+    /**
+     * Deletes the next chunk of patients that were archived before the given date. Patients referenced by a treatment that
+     * has to be kept are skipped.
+     *
+     * @param cutoff Patients archived before this date are deleted.
+     * @param limit  Maximum number of archived patients the chunk looks at.
+     * @return The result of the chunk.
+     * @throws SQLException If the chunk could not be deleted, the chunk is rolled back then.
+     */
+    @Override
+    public PurgeChunk deleteArchivedChunk(LocalDate cutoff, int limit) throws SQLException {
+        return deleteArchivedChunk(cutoff, limit, KEEP_CONDITION, DateConverter.convertLocalDateToEpochDay(cutoff));
+    }
+
     /**
      * Archives a patient with the given id.
      *
@@ -0,0 +1,12 @@
+package de.hitec.nhplus.datastorage;
+
+/**
+ * Result of deleting one chunk of archived objects with <code>deleteArchivedChunk()</code>.
+ *
+ * @param processed Number of archived objects the chunk looked at.
+ * @param deleted   Number of objects that were deleted, objects that have to be kept are not deleted.
+ * @param finished  Whether the chunk reached the end of the archived objects. The watermark is reset then, so the
+ *                  next purge starts from the beginning.
+ */
+public record PurgeChunk(int processed, int deleted, boolean finished) {
+}
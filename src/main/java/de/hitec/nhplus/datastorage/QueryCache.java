@@ -0,0 +1,212 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The <code>QueryCache</code> keeps the results of list queries in memory, keyed by the SQL and the bound parameters.
+ * Every result remembers the tables its query reads, taken from the <code>FROM</code> and <code>JOIN</code> clauses.
+ * A write to a table drops only the results that depend on that table, all other results stay cached.
+ * <p>
+ * The cache holds at most <code>maxEntries</code> results and evicts the least recently used one when it is full.
+ * Results with more than <code>maxRows</code> rows are not cached, so a few large lists cannot take up all the memory.
+ * Every hit returns a new list, the cached entities themselves are shared like in the {@link EntityCache}.
+ * </p>
+ */
+public class QueryCache {
+
+    /**
+     * Counters of a query cache.
+     *
+     * @param size          Number of cached results.
+     * @param hits          Number of queries that were answered from the cache.
+     * @param misses        Number of queries that went to the database.
+     * @param evictions     Number of results evicted because the cache was full.
+     * @param invalidations Number of results dropped because a table they depend on was written.
+     */
+    public record Statistics(int size, long hits, long misses, long evictions, long invalidations) {
+        /**
+         * Returns the share of queries answered from the cache.
+         *
+         * @return The hit rate between <code>0</code> and <code>1</code>, <code>0</code> without queries.
+         */
+        public double hitRate() {
+            long queries = this.hits + this.misses;
+            return queries == 0 ? 0 : (double) this.hits / queries;
+        }
+    }
+
+    private record Key(String sql, List<Object> parameters) {
+    }
+
+    private record Entry(List<?> rows, Set<String> tables) {
+    }
+
+    private static final Pattern TABLE = Pattern.compile("\\b(?:FROM|JOIN)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final int maxEntries;
+    private final int maxRows;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final Map<String, Set<String>> tablesBySql = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+
+    private long epoch = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Creates a query cache.
+     *
+     * @param maxEntries Maximum number of cached results.
+     * @param maxRows    Maximum number of rows of a cached result.
+     */
+    public QueryCache(int maxEntries, int maxRows) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxRows = Math.max(0, maxRows);
+        // access order turns the map into an LRU list, the eldest entry is the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= QueryCache.this.maxEntries)
+                    return false;
+
+                QueryCache.this.evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result of the given query or runs the query and caches its result. The result is not cached
+     * if one of the tables of the query was written while the query ran.
+     *
+     * @param sql        SQL of the query.
+     * @param parameters Parameters bound to the query.
+     * @param query      Runs the query on the database.
+     * @param <R>        Type of the rows.
+     * @return A new list with the rows of the result.
+     * @throws SQLException If the query fails.
+     */
+    @SuppressWarnings("unchecked")
+    <R> ArrayList<R> get(String sql, Object[] parameters, ConnectionScope.SqlWork<ArrayList<R>> query)
+            throws SQLException {
+        Key key = new Key(sql, Arrays.asList(parameters.clone()));
+        Set<String> tables;
+        long[] versionsBefore;
+        long epochBefore;
+
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (entry != null) {
+                this.hits++;
+                return new ArrayList<>((List<R>) entry.rows());
+            }
+
+            this.misses++;
+            tables = this.tablesOf(sql);
+            versionsBefore = this.versionsOf(tables);
+            epochBefore = this.epoch;
+        }
+
+        ArrayList<R> rows = query.execute();
+
+        synchronized (this) {
+            if (rows.size() <= this.maxRows && epochBefore == this.epoch
+                    && Arrays.equals(versionsBefore, this.versionsOf(tables))) {
+                this.entries.put(key, new Entry(List.copyOf(rows), tables));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Drops all results that depend on the given table. Called after every write to the table.
+     *
+     * @param table Name of the written table.
+     */
+    public synchronized void invalidate(String table) {
+        String name = table.toLowerCase(Locale.ROOT);
+        this.versions.merge(name, 1L, Long::sum);
+
+        for (Iterator<Entry> iterator = this.entries.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().tables().contains(name)) {
+                iterator.remove();
+                this.invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops all results.
+     */
+    public synchronized void invalidateAll() {
+        this.epoch++;
+        this.invalidations += this.entries.size();
+        this.entries.clear();
+    }
+
+    /**
+     * Returns the counters of the cache.
+     *
+     * @return The current counters.
+     */
+    public synchronized Statistics getStatistics() {
+        return new Statistics(this.entries.size(), this.hits, this.misses, this.evictions, this.invalidations);
+    }
+
+    /**
+     * Returns the tables the given query reads.
+     *
+     * @param sql SQL of the query.
+     * @return Lower case names of the tables after <code>FROM</code> and <code>JOIN</code>.
+     */
+    private Set<String> tablesOf(String sql) {
+        return this.tablesBySql.computeIfAbsent(sql, key -> {
+            Set<String> tables = new HashSet<>();
+            Matcher matcher = TABLE.matcher(key);
+            while (matcher.find()) {
+                tables.add(matcher.group(1).toLowerCase(Locale.ROOT));
+            }
+            return Set.copyOf(tables);
+        });
+    }
+
+    /**
+     * Returns the current versions of the given tables, in the iteration order of the set.
+     *
+     * @param tables Names of the tables.
+     * @return The number of writes to every table.
+     */
+    private long[] versionsOf(Set<String> tables) {
+        long[] result = new long[tables.size()];
+        int i = 0;
+        for (String table : tables) {
+            result[i++] = this.versions.getOrDefault(table, 0L);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        Statistics statistics = this.getStatistics();
+        return "size=" + statistics.size() + "/" + this.maxEntries +
+                ", hits=" + statistics.hits() +
+                ", misses=" + statistics.misses() +
+                ", evictions=" + statistics.evictions() +
+                ", invalidations=" + statistics.invalidations() +
+                String.format(", hit_rate=%.2f", statistics.hitRate());
+    }
+}
@@ -0,0 +1,406 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * The <code>SchemaMigrator</code> brings the schema of the database up to date. The version of the schema is stored in
+ * <code>PRAGMA user_version</code>, every migration raises it by one. A migration runs in its own transaction together
+ * with the update of the version, so a failed migration leaves the database at the previous version.
+ * <p>
+ * Migrations must be idempotent, since databases created before the versioning started are at version 0 although
+ * they already contain some of the tables. New migrations are appended to <code>MIGRATIONS</code>, existing ones must
+ * never be changed or reordered.
+ * </p>
+ * <p>
+ * Foreign keys are switched off while migrating, so tables can be rebuilt without cascading deletes. If the connection
+ * enforces foreign keys, every migration has to leave them consistent before it is committed.
+ * </p>
+ */
+public class SchemaMigrator {
+
+    /**
+     * A single step of the schema migration.
+     */
+    @FunctionalInterface
+    public interface Migration {
+        /**
+         * Applies the migration. Runs inside the transaction of the migration.
+         *
+         * @param statement Statement to execute the DDL with.
+         * @throws SQLException If the migration fails, the transaction is rolled back then.
+         */
+        void apply(Statement statement) throws SQLException;
+    }
+
+    // the migration at index i migrates the schema from version i to version i + 1
+    private static final List<Migration> MIGRATIONS = List.of(
+            SchemaMigrator::createTables,
+            SchemaMigrator::createIndexes,
+            SchemaMigrator::createPurgeWatermark,
+            SchemaMigrator::storeDatesAsNumbers
+    );
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Returns the version of the schema after all migrations ran.
+     *
+     * @return The latest schema version.
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.size();
+    }
+
+    /**
+     * Migrates the database of the connection pool to the latest version.
+     *
+     * @return The number of applied migrations, <code>0</code> if the schema was up to date already.
+     * @throws SQLException If a migration failed. The migrations before it stay applied.
+     */
+    public static int migrate() throws SQLException {
+        ConnectionPool pool = ConnectionPool.getInstance();
+        Connection connection = pool.acquireWriteConnection();
+        try {
+            return SchemaMigrator.migrate(connection);
+        } finally {
+            pool.releaseWriteConnection(connection);
+        }
+    }
+
+    /**
+     * Migrates the database of the given connection to the latest version. If the schema is up to date already, this
+     * only reads the version.
+     *
+     * @param connection Connection to the database to migrate.
+     * @return The number of applied migrations, <code>0</code> if the schema was up to date already.
+     * @throws SQLException If a migration failed. The migrations before it stay applied.
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        return SchemaMigrator.migrate(connection, MIGRATIONS.size());
+    }
+
+    /**
+     * Migrates the database of the given connection up to the given version. Databases at or above that version are
+     * left unchanged.
+     *
+     * @param connection    Connection to the database to migrate.
+     * @param targetVersion Version to migrate to, at most <code>getLatestVersion()</code>.
+     * @return The number of applied migrations.
+     * @throws SQLException If a migration failed. The migrations before it stay applied.
+     */
+    public static int migrate(Connection connection, int targetVersion) throws SQLException {
+        if (targetVersion > MIGRATIONS.size())
+            throw new IllegalArgumentException("Unknown schema version " + targetVersion);
+
+        int version = SchemaMigrator.getVersion(connection);
+        if (version >= targetVersion)
+            return 0;
+
+        boolean foreignKeys = SchemaMigrator.readPragma(connection, "foreign_keys") == 1;
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            // can only be changed outside of a transaction
+            statement.execute("PRAGMA foreign_keys = OFF");
+            connection.setAutoCommit(false);
+
+            for (int next = version; next < targetVersion; next++) {
+                try {
+                    MIGRATIONS.get(next).apply(statement);
+                    if (foreignKeys) {
+                        SchemaMigrator.checkForeignKeys(statement, next + 1);
+                    }
+                    statement.execute("PRAGMA user_version = " + (next + 1));
+                    connection.commit();
+                } catch (SQLException | RuntimeException exception) {
+                    connection.rollback();
+                    throw exception;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            if (foreignKeys) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA foreign_keys = ON");
+                }
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            // lets the query planner pick between the new indexes based on the actual data
+            statement.execute("PRAGMA optimize");
+        }
+
+        System.out.println("Migrated database schema from version " + version + " to " + targetVersion + ".");
+        return targetVersion - version;
+    }
+
+    /**
+     * Reads the schema version of the database of the given connection.
+     *
+     * @param connection Connection to the database.
+     * @return The schema version, <code>0</code> for a new database.
+     * @throws SQLException If the version could not be read.
+     */
+    public static int getVersion(Connection connection) throws SQLException {
+        return SchemaMigrator.readPragma(connection, "user_version");
+    }
+
+    /**
+     * Reads a numeric pragma of the database of the given connection.
+     *
+     * @param connection Connection to the database.
+     * @param pragma     Name of the pragma.
+     * @return The value of the pragma, <code>0</code> if it has none.
+     * @throws SQLException If the pragma could not be read.
+     */
+    private static int readPragma(Connection connection, String pragma) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA " + pragma)) {
+            return result.next() ? result.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Checks that the foreign keys are consistent after a migration, since they are not enforced while migrating.
+     *
+     * @param statement Statement of the migration.
+     * @param version   Version the migration migrates to, used in the error message.
+     * @throws SQLException If a row references a missing row.
+     */
+    private static void checkForeignKeys(Statement statement, int version) throws SQLException {
+        try (ResultSet result = statement.executeQuery("PRAGMA foreign_key_check")) {
+            if (result.next()) {
+                throw new SQLException("Migration to version " + version + " violates a foreign key of table " +
+                        result.getString(1) + ", row " + result.getLong(2));
+            }
+        }
+    }
+
+    /**
+     * Version 1: creates the tables of patients, treatments, caregivers, medicines and users.
+     *
+     * @param statement Statement to execute the DDL with.
+     * @throws SQLException If a table could not be created.
+     */
+    private static void createTables(Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS patient (" +
+                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "   firstname TEXT NOT NULL, " +
+                "   surname TEXT NOT NULL, " +
+                "   dateOfBirth TEXT NOT NULL, " +
+                "   carelevel TEXT NOT NULL, " +
+                "   roomnumber TEXT NOT NULL, " +
+                "   archivedOn TEXT" +
+                ")");
+        statement.execute("CREATE TABLE IF NOT EXISTS treatment (" +
+                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "   patientId INTEGER NOT NULL, " +
+                "   treatment_date TEXT NOT NULL, " +
+                "   begin TEXT NOT NULL, " +
+                "   end TEXT NOT NULL, " +
+                "   description TEXT NOT NULL, " +
+                "   remark TEXT NOT NULL," +
+                "   caregiverId INTEGER NOT NULL," +
+                "   medicineId INTEGER," +
+                "   archivedOn TEXT," +
+                "   FOREIGN KEY (patientId) REFERENCES patient (id) ON DELETE CASCADE " +
+                ")");
+        statement.execute("CREATE TABLE IF NOT EXISTS caregiver (" +
+                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "   firstname TEXT NOT NULL, " +
+                "   surname TEXT NOT NULL, " +
+                "   phoneNumber TEXT NOT NULL, " +
+                "   archivedOn TEXT" +
+                ")");
+        statement.execute("CREATE TABLE IF NOT EXISTS medicine (" +
+                "   medicineId INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "   name TEXT NOT NULL, " +
+                "   storage TEXT NOT NULL," +
+                "   expirationDate TEXT NOT NULL" +
+                ")");
+        statement.execute("CREATE TABLE IF NOT EXISTS user (" +
+                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "   username TEXT NOT NULL, " +
+                "   password TEXT NOT NULL " +
+                ")");
+    }
+
+    /**
+     * Version 2: creates the indexes of the frequent queries. The partial indexes on <code>archivedOn IS NULL</code>
+     * only contain the active rows the views list, the ones on <code>archivedOn IS NOT NULL</code> only the archived
+     * rows the archive purge looks at.
+     *
+     * @param statement Statement to execute the DDL with.
+     * @throws SQLException If an index could not be created, for example because of duplicate usernames.
+     */
+    private static void createIndexes(Statement statement) throws SQLException {
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_patient_date ON treatment (patientId, treatment_date)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_caregiver ON treatment (caregiverId)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_medicine ON treatment (medicineId)");
+        statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_user_username ON user (username)");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_patient_not_archived ON patient (id) WHERE archivedOn IS NULL");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_caregiver_not_archived ON caregiver (id) WHERE archivedOn IS NULL");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_not_archived ON treatment (id) WHERE archivedOn IS NULL");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_patient_archived ON patient (archivedOn) WHERE archivedOn IS NOT NULL");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_caregiver_archived ON caregiver (archivedOn) WHERE archivedOn IS NOT NULL");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_treatment_archived ON treatment (archivedOn) WHERE archivedOn IS NOT NULL");
+    }
+
+    /**
+     * Version 3: creates the table that stores how far the chunked archive purge got in each table.
+     *
+     * @param statement Statement to execute the DDL with.
+     * @throws SQLException If the table could not be created.
+     */
+    private static void createPurgeWatermark(Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS " + DaoImp.WATERMARK_TABLE + " (" +
+                "   tableName TEXT PRIMARY KEY, " +
+                "   archivedOn TEXT NOT NULL, " +
+                "   id INTEGER NOT NULL" +
+                ")");
+    }
+
+    /**
+     * Version 4: stores dates as INTEGER days since 1970-01-01 and times as INTEGER minutes since midnight instead of
+     * TEXT. Numbers are compared without collation, are smaller and are mapped without parsing. SQLite cannot change
+     * the type of a column, so the tables with dates are rebuilt and their indexes created again. The watermark of the
+     * chunked purge is dropped, an interrupted purge starts over. Dates that are numbers already are kept, so the
+     * migration can run again after the version was reset.
+     *
+     * @param statement Statement to execute the DDL with.
+     * @throws SQLException If a table could not be rebuilt, for example because of an invalid date.
+     */
+    private static void storeDatesAsNumbers(Statement statement) throws SQLException {
+        // julianday() and strftime() return NULL for text they cannot parse, which would make archived rows active
+        checkConvertible(statement, "patient", "dateOfBirth", epochDay("dateOfBirth"));
+        checkConvertible(statement, "patient", "archivedOn", epochDay("archivedOn"));
+        checkConvertible(statement, "treatment", "treatment_date", epochDay("treatment_date"));
+        checkConvertible(statement, "treatment", "begin", minutes("begin"));
+        checkConvertible(statement, "treatment", "end", minutes("end"));
+        checkConvertible(statement, "treatment", "archivedOn", epochDay("archivedOn"));
+        checkConvertible(statement, "caregiver", "archivedOn", epochDay("archivedOn"));
+        checkConvertible(statement, "medicine", "expirationDate", epochDay("expirationDate"));
+
+        rebuildTable(statement, "patient", "CREATE TABLE patient_new (" +
+                        "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "   firstname TEXT NOT NULL, " +
+                        "   surname TEXT NOT NULL, " +
+                        "   dateOfBirth INTEGER NOT NULL, " +
+                        "   carelevel TEXT NOT NULL, " +
+                        "   roomnumber TEXT NOT NULL, " +
+                        "   archivedOn INTEGER" +
+                        ")",
+                "id, firstname, surname, " + epochDay("dateOfBirth") + ", carelevel, roomnumber, " + epochDay("archivedOn"));
+        rebuildTable(statement, "treatment", "CREATE TABLE treatment_new (" +
+                        "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "   patientId INTEGER NOT NULL, " +
+                        "   treatment_date INTEGER NOT NULL, " +
+                        "   begin INTEGER NOT NULL, " +
+                        "   end INTEGER NOT NULL, " +
+                        "   description TEXT NOT NULL, " +
+                        "   remark TEXT NOT NULL," +
+                        "   caregiverId INTEGER NOT NULL," +
+                        "   medicineId INTEGER," +
+                        "   archivedOn INTEGER," +
+                        "   FOREIGN KEY (patientId) REFERENCES patient (id) ON DELETE CASCADE " +
+                        ")",
+                "id, patientId, " + epochDay("treatment_date") + ", " + minutes("begin") + ", " + minutes("end") +
+                        ", description, remark, caregiverId, medicineId, " + epochDay("archivedOn"));
+        rebuildTable(statement, "caregiver", "CREATE TABLE caregiver_new (" +
+                        "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "   firstname TEXT NOT NULL, " +
+                        "   surname TEXT NOT NULL, " +
+                        "   phoneNumber TEXT NOT NULL, " +
+                        "   archivedOn INTEGER" +
+                        ")",
+                "id, firstname, surname, phoneNumber, " + epochDay("archivedOn"));
+        rebuildTable(statement, "medicine", "CREATE TABLE medicine_new (" +
+                        "   medicineId INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "   name TEXT NOT NULL, " +
+                        "   storage TEXT NOT NULL," +
+                        "   expirationDate INTEGER NOT NULL" +
+                        ")",
+                "medicineId, name, storage, " + epochDay("expirationDate"));
+
+        statement.execute("DROP TABLE IF EXISTS " + DaoImp.WATERMARK_TABLE);
+        statement.execute("CREATE TABLE " + DaoImp.WATERMARK_TABLE + " (" +
+                "   tableName TEXT PRIMARY KEY, " +
+                "   archivedOn INTEGER NOT NULL, " +
+                "   id INTEGER NOT NULL" +
+                ")");
+
+        // the indexes were dropped together with the old tables
+        createIndexes(statement);
+    }
+
+    /**
+     * Checks that every value of the given column can be converted by the given expression.
+     *
+     * @param statement  Statement to execute the query with.
+     * @param table      Name of the table.
+     * @param column     Name of the column.
+     * @param conversion SQL expression converting the column.
+     * @throws SQLException If a value that is not <code>NULL</code> converts to <code>NULL</code>.
+     */
+    private static void checkConvertible(Statement statement, String table, String column, String conversion)
+            throws SQLException {
+        try (ResultSet result = statement.executeQuery("SELECT " + column + " FROM " + table +
+                " WHERE " + column + " IS NOT NULL AND (" + conversion + ") IS NULL LIMIT 1")) {
+            if (result.next())
+                throw new SQLException("Cannot convert " + table + "." + column + " '" + result.getString(1) + "'");
+        }
+    }
+
+    /**
+     * Replaces a table by a new one with the same name. The rows are copied with the given select list, the
+     * AUTOINCREMENT counter is carried over, so ids of deleted rows are not reused.
+     *
+     * @param statement  Statement to execute the DDL with.
+     * @param table      Name of the table to rebuild.
+     * @param createSql  DDL that creates the new table as <code>&lt;table&gt;_new</code>.
+     * @param selectList Columns of the old table, converted where needed, in the order of the new table.
+     * @throws SQLException If the table could not be rebuilt.
+     */
+    private static void rebuildTable(Statement statement, String table, String createSql, String selectList)
+            throws SQLException {
+        String newTable = table + "_new";
+
+        statement.execute(createSql);
+        statement.execute("INSERT INTO " + newTable + " SELECT " + selectList + " FROM " + table);
+        statement.execute("DELETE FROM sqlite_sequence WHERE name = '" + newTable + "'");
+        statement.execute("INSERT INTO sqlite_sequence (name, seq) SELECT '" + newTable + "', seq " +
+                "FROM sqlite_sequence WHERE name = '" + table + "'");
+        statement.execute("DROP TABLE " + table);
+        statement.execute("ALTER TABLE " + newTable + " RENAME TO " + table);
+    }
+
+    /**
+     * Returns the SQL expression converting a TEXT date in the format <code>yyyy-MM-dd</code> to days since 1970-01-01.
+     * Values that are not text, like <code>NULL</code> or converted dates, stay unchanged.
+     *
+     * @param column Column holding the date.
+     * @return The SQL expression.
+     */
+    private static String epochDay(String column) {
+        // the julian day of 1970-01-01 at midnight is 2440587.5
+        return "CASE WHEN typeof(" + column + ") = 'text' " +
+                "THEN CAST(round(julianday(" + column + ") - 2440587.5) AS INTEGER) ELSE " + column + " END";
+    }
+
+    /**
+     * Returns the SQL expression converting a TEXT time in the format <code>HH:mm</code> to minutes since midnight.
+     * Values that are not text stay unchanged.
+     *
+     * @param column Column holding the time.
+     * @return The SQL expression.
+     */
+    private static String minutes(String column) {
+        return "CASE WHEN typeof(" + column + ") = 'text' " +
+                "THEN CAST(strftime('%s', '1970-01-01 ' || " + column + ") AS INTEGER) / 60 ELSE " + column + " END";
+    }
+}
@@ -0,0 +1,69 @@
+package de.hitec.nhplus.datastorage;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <code>ConnectionProvider</code> that serves all reads and writes from one connection. Access is serialized with a
+ * lock, so the connection is never used by two threads at the same time. Used for DAOs that are created with a plain
+ * connection, for example on an in-memory database in tests. All DAOs of a connection share its provider, see
+ * <code>of()</code>, so they are serialized by the same lock and join the same transactions.
+ */
+class SingleConnectionProvider implements ConnectionProvider {
+
+    // the providers are only weakly referenced, they hold their connection and would otherwise keep it in the map
+    private static final Map<Connection, WeakReference<SingleConnectionProvider>> providers = new WeakHashMap<>();
+
+    private final Connection connection;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates a new provider for the given connection.
+     *
+     * @param connection The connection to serve.
+     */
+    SingleConnectionProvider(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Returns the provider of the given connection, it is created on first use.
+     *
+     * @param connection The connection to serve.
+     * @return The provider of the connection.
+     */
+    static synchronized SingleConnectionProvider of(Connection connection) {
+        WeakReference<SingleConnectionProvider> reference = providers.get(connection);
+        SingleConnectionProvider provider = reference == null ? null : reference.get();
+        if (provider == null) {
+            provider = new SingleConnectionProvider(connection);
+            providers.put(connection, new WeakReference<>(provider));
+        }
+        return provider;
+    }
+
+    @Override
+    public Connection acquireReadConnection() {
+        this.lock.lock();
+        return this.connection;
+    }
+
+    @Override
+    public void releaseReadConnection(Connection connection) {
+        this.lock.unlock();
+    }
+
+    @Override
+    public Connection acquireWriteConnection() {
+        this.lock.lock();
+        return this.connection;
+    }
+
+    @Override
+    public void releaseWriteConnection(Connection connection) {
+        this.lock.unlock();
+    }
+}
@@ -0,0 +1,147 @@
+package de.hitec.nhplus.datastorage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The <code>StatementCache</code> keeps the prepared statements of one connection, keyed by their SQL text. Statements
+ * are prepared once and reused on every following call with the same SQL. The cache is bounded: once more than
+ * <code>MAX_STATEMENTS</code> statements are cached, the least recently used one is closed and evicted.
+ * <p>
+ * Cached statements are owned by the cache and must not be closed by the caller. Only their result sets have to be
+ * closed after use.
+ * </p>
+ */
+public class StatementCache {
+
+    private static final int MAX_STATEMENTS = 64;
+
+    private static final Map<Connection, StatementCache> caches = new IdentityHashMap<>();
+
+    private final Connection connection;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * Creates a new cache for the given connection.
+     *
+     * @param connection Connection the statements are prepared on.
+     */
+    private StatementCache(Connection connection) {
+        this.connection = connection;
+        // access order turns the map into a LRU list, the eldest entry is the least recently used statement
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= MAX_STATEMENTS)
+                    return false;
+
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the statement cache of the given connection. The cache is created on first use.
+     *
+     * @param connection Connection to get the cache for.
+     * @return The statement cache of the connection.
+     */
+    public static synchronized StatementCache forConnection(Connection connection) {
+        StatementCache cache = caches.get(connection);
+
+        if (cache == null) {
+            // drop caches of connections that were closed without calling close(connection)
+            caches.keySet().removeIf(StatementCache::isClosed);
+            cache = new StatementCache(connection);
+            caches.put(connection, cache);
+        }
+
+        return cache;
+    }
+
+    /**
+     * Closes all cached statements of the given connection and forgets the cache. Must be called before the
+     * connection itself is closed.
+     *
+     * @param connection Connection whose statements should be closed.
+     */
+    public static void close(Connection connection) {
+        StatementCache cache;
+        synchronized (StatementCache.class) {
+            cache = caches.remove(connection);
+        }
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns the prepared statement for the given SQL. If the statement is not cached yet, it is prepared and added
+     * to the cache. Parameters of a reused statement are cleared before it is returned.
+     *
+     * @param sql SQL of the statement.
+     * @return The prepared statement for the given SQL.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = this.statements.get(sql);
+
+        if (statement != null && !statement.isClosed()) {
+            statement.clearParameters();
+            return statement;
+        }
+
+        statement = this.connection.prepareStatement(sql);
+        this.statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Returns the number of cached statements.
+     *
+     * @return The number of cached statements.
+     */
+    public synchronized int size() {
+        return this.statements.size();
+    }
+
+    /**
+     * Closes and removes all cached statements.
+     */
+    public synchronized void clear() {
+        this.statements.values().forEach(StatementCache::closeQuietly);
+        this.statements.clear();
+    }
+
+    /**
+     * Checks if the given connection is closed. A connection that cannot be checked is treated as closed.
+     *
+     * @param connection Connection to check.
+     * @return <code>true</code> if the connection is closed, otherwise <code>false</code>.
+     */
+    private static boolean isClosed(Connection connection) {
+        try {
+            return connection.isClosed();
+        } catch (SQLException exception) {
+            return true;
+        }
+    }
+
+    /**
+     * Closes the given statement and ignores any error, since the statement is discarded anyway.
+     *
+     * @param statement Statement to close.
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException exception) {
+            // nothing to do, the statement is not used anymore
+        }
+    }
+}
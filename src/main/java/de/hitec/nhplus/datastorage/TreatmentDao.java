@@ -1,7 +1,9 @@
 package de.hitec.nhplus.datastorage;
 
 import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
+import de.hitec.nhplus.model.Exceptions.UpdateException;
 import de.hitec.nhplus.model.Treatment;
+import de.hitec.nhplus.model.TreatmentDetails;
 import de.hitec.nhplus.utils.DateConverter;
 
 import java.sql.*;
@@ -9,6 +11,7 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Implements the Interface <code>DaoImp</code>. Overrides methods to generate specific <code>PreparedStatements</code>,
@@ -27,28 +30,43 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>TreatmentDao</code> that acquires its connections from the given provider.
+     *
+     * @param connectionProvider Provider of the connections to execute the SQL-statements.
+     */
+    public TreatmentDao(ConnectionProvider connectionProvider) {
+        super(connectionProvider);
+    }
+
+    @Override
+    protected String getTableName() {
+        return TABLE_NAME;
+    }
+
     /**
      * Generates a <code>PreparedStatement</code> to persist the given object of <code>Treatment</code>.
      *
      * @param treatment Object of <code>Treatment</code> to persist.
+     * @param returning Whether the statement should return the inserted row.
      * @return <code>PreparedStatement</code> to insert the given patient.
      */
     @Override
-    protected PreparedStatement getCreateStatement(TreatmentCreationData treatment) {
+    protected PreparedStatement getCreateStatement(TreatmentCreationData treatment, boolean returning) {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "INSERT INTO treatment (patientId, treatment_date, begin, end, description, remark, caregiverId, medicineId, archivedOn) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)" + (returning ? RETURNING_ALL : "");
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, treatment.patientId());
-            preparedStatement.setString(2, treatment.date().toString());
-            preparedStatement.setString(3, treatment.begin().toString());
-            preparedStatement.setString(4, treatment.end().toString());
+            preparedStatement.setLong(2, DateConverter.convertLocalDateToEpochDay(treatment.date()));
+            preparedStatement.setInt(3, DateConverter.convertLocalTimeToMinutes(treatment.begin()));
+            preparedStatement.setInt(4, DateConverter.convertLocalTimeToMinutes(treatment.end()));
             preparedStatement.setString(5, treatment.description());
             preparedStatement.setString(6, treatment.remarks());
             preparedStatement.setLong(7, treatment.caregiverId());
             preparedStatement.setLong(8, treatment.medicineId());
-            preparedStatement.setString(9, treatment.archivedOn() == null ? null : treatment.archivedOn().toString());
+            preparedStatement.setObject(9, treatment.archivedOn() == null ? null : DateConverter.convertLocalDateToEpochDay(treatment.archivedOn()));
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -66,7 +84,7 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM treatment WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -95,7 +113,7 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
         PreparedStatement statement = null;
         try {
             final String SQL = "SELECT * FROM treatment";
-            statement = this.connection.prepareStatement(SQL);
+            statement = this.prepareStatement(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -110,8 +128,7 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
     public ArrayList<Treatment> getAllArchived() {
         try {
             final String SQL = "SELECT * FROM treatment WHERE archivedOn IS NOT NULL";
-            ResultSet result = this.connection.prepareStatement(SQL).executeQuery();
-            return getListFromResultSet(result);
+            return readList(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -127,9 +144,131 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
     public ArrayList<Treatment> getAllNotArchived() {
         try {
             final String SQL = "SELECT * FROM treatment WHERE archivedOn IS NULL";
-            ResultSet result = this.connection.prepareStatement(SQL).executeQuery();
+            return readList(SQL);
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Streams all archived treatments from the database. The stream has to be closed after use.
+     *
+     * @return Stream of all treatments that are archived.
+     */
+    public Stream<Treatment> streamAllArchived() {
+        return stream("SELECT * FROM treatment WHERE archivedOn IS NOT NULL");
+    }
 
-            return getListFromResultSet(result);
+    /**
+     * Streams all not archived treatments from the database. The stream has to be closed after use.
+     *
+     * @return Stream of all treatments that are not archived.
+     */
+    public Stream<Treatment> streamAllNotArchived() {
+        return stream("SELECT * FROM treatment WHERE archivedOn IS NULL");
+    }
+
+    /**
+     * Gets a page of not archived treatments from the database, ordered by id.
+     *
+     * @param afterId Id after which the page starts, <code>0</code> for the first page.
+     * @param limit   Maximum number of treatments on the page.
+     * @return Not archived treatments with an id greater than <code>afterId</code>.
+     */
+    public ArrayList<Treatment> getPageNotArchived(long afterId, int limit) {
+        try {
+            return readPage("archivedOn IS NULL", afterId, limit);
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Gets all treatments together with the data of the patient, caregiver and medicine they reference.
+     *
+     * @return All treatments with their details.
+     */
+    public ArrayList<TreatmentDetails> getAllWithDetails() {
+        return readDetails(null, "");
+    }
+
+    /**
+     * Gets all not archived treatments together with the data of the patient, caregiver and medicine they reference.
+     *
+     * @return All not archived treatments with their details.
+     */
+    public ArrayList<TreatmentDetails> getAllNotArchivedWithDetails() {
+        return readDetails("t.archivedOn IS NULL", "");
+    }
+
+    /**
+     * Gets all treatments of the patient with the given id (pid) together with the data of the patient, caregiver
+     * and medicine they reference.
+     *
+     * @param pid Patient id the treatments reference.
+     * @return All treatments of the patient with their details.
+     */
+    public ArrayList<TreatmentDetails> getWithDetailsByPid(long pid) {
+        return readDetails("t.patientId = ?", "", pid);
+    }
+
+    /**
+     * Gets a page of treatments together with the data of the patient, caregiver and medicine they reference,
+     * ordered by id.
+     *
+     * @param pid             Patient id the treatments reference, <code>null</code> for the treatments of all patients.
+     * @param includeArchived Whether archived treatments are part of the page.
+     * @param afterId         Id after which the page starts, <code>0</code> for the first page.
+     * @param limit           Maximum number of treatments on the page.
+     * @return Treatments with their details with an id greater than <code>afterId</code>.
+     */
+    public ArrayList<TreatmentDetails> getPageWithDetails(Long pid, boolean includeArchived, long afterId, int limit) {
+        String condition = "t.id > ?";
+        ArrayList<Object> parameters = new ArrayList<>();
+        parameters.add(afterId);
+
+        if (pid != null) {
+            condition += " AND t.patientId = ?";
+            parameters.add(pid);
+        }
+        if (!includeArchived)
+            condition += " AND t.archivedOn IS NULL";
+
+        parameters.add(limit);
+        return readDetails(condition, " ORDER BY t.id LIMIT ?", parameters.toArray());
+    }
+
+    /**
+     * Reads treatments with their details in one query, joining the patient, caregiver and medicine tables. Missing
+     * references are joined as <code>null</code>.
+     *
+     * @param condition  SQL condition the treatments have to match, <code>null</code> to read all treatments.
+     * @param suffix     SQL appended after the condition, for example an order and a limit.
+     * @param parameters Parameters to bind to the placeholders, in order.
+     * @return List of the treatments with their details.
+     */
+    private ArrayList<TreatmentDetails> readDetails(String condition, String suffix, Object... parameters) {
+        final String SQL = "SELECT t.*, p.surname AS patient_surname, p.firstname AS patient_firstname, " +
+                "p.carelevel AS patient_carelevel, c.surname AS caregiver_surname, " +
+                "c.firstname AS caregiver_firstname, m.name AS medicine_name " +
+                "FROM treatment t " +
+                "LEFT JOIN patient p ON p.id = t.patientId " +
+                "LEFT JOIN caregiver c ON c.id = t.caregiverId " +
+                "LEFT JOIN medicine m ON m.medicineId = t.medicineId" +
+                (condition == null ? "" : " WHERE " + condition) + suffix;
+
+        try {
+            return readList(SQL, result -> {
+                ArrayList<TreatmentDetails> list = new ArrayList<>();
+                while (result.next()) {
+                    list.add(TreatmentDetails.fromResultSet(result));
+                }
+                return list;
+            }, parameters);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -166,7 +305,7 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM treatment WHERE patientId = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, pid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -183,8 +322,11 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
      * <code>ResultSet</code>.
      */
     public List<Treatment> readTreatmentsByPid(long pid) throws SQLException {
-        ResultSet result = getReadAllTreatmentsOfOnePatientByPid(pid).executeQuery();
-        return getListFromResultSet(result);
+        return read(() -> {
+            try (ResultSet result = getReadAllTreatmentsOfOnePatientByPid(pid).executeQuery()) {
+                return getListFromResultSet(result);
+            }
+        });
     }
 
     /**
@@ -207,11 +349,11 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
                             "description = ?, " +
                             "remark = ? " +
                             "WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, treatment.getPid());
-            preparedStatement.setString(2, treatment.getDate());
-            preparedStatement.setString(3, treatment.getBegin());
-            preparedStatement.setString(4, treatment.getEnd());
+            preparedStatement.setLong(2, DateConverter.convertLocalDateToEpochDay(treatment.getLocalDate()));
+            preparedStatement.setInt(3, DateConverter.convertLocalTimeToMinutes(treatment.getLocalBegin()));
+            preparedStatement.setInt(4, DateConverter.convertLocalTimeToMinutes(treatment.getLocalEnd()));
             preparedStatement.setString(5, treatment.getDescription());
             preparedStatement.setString(6, treatment.getRemarks());
             preparedStatement.setLong(7, treatment.getId());
@@ -225,15 +367,15 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
      * Generates a <code>PreparedStatement</code> to delete a treatment with the given id.
      *
      * @param tid Id of the Treatment to delete.
-     * @return <code>PreparedStatement</code> to delete treatment with the given id.
+     * @return <code>PreparedStatement</code> to delete treatment with the given id, returning the deleted row.
      */
     @Override
     protected PreparedStatement getDeleteStatement(long tid) {
         PreparedStatement preparedStatement = null;
         try {
             final String SQL =
-                    "DELETE FROM treatment WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+                    "DELETE FROM treatment WHERE id = ?" + RETURNING_ALL;
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, tid);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -241,6 +383,29 @@ public class TreatmentDao extends DaoImp<Treatment, TreatmentCreationData> {
         return preparedStatement;
     }
 
+    /**
+     * Deletes all treatments that were archived before the given date. Runs as a single statement.
+     *
+     * @param cutoff Treatments archived before this date are deleted.
+     * @return The number of deleted treatments.
+     * @throws UpdateException If the treatments could not be deleted.
+     */
+    public int deleteArchivedBefore(LocalDate cutoff) {
+        long cutoffDay = DateConverter.convertLocalDateToEpochDay(cutoff);
+        try {
+            final String SQL = "DELETE FROM treatment WHERE archivedOn IS NOT NULL AND archivedOn < ?";
+            return write(() -> {
+                PreparedStatement preparedStatement = this.prepareStatement(SQL);
+                preparedStatement.setLong(1, cutoffDay);
+                return preparedStatement.executeUpdate();
+            });
+        } catch (SQLException exception) {
+            throw new UpdateException(exception.getMessage());
+        } finally {
+            this.invalidateCache();
+        }
+    }
+
     /**
      * Archives a treatment with the given id.
      *
@@ -16,6 +16,8 @@ import java.util.ArrayList;
  */
 public class UserDao extends DaoImp<User, UserCreationData>{
 
+    public static final String TABLE_NAME = "user";
+
     /**
      * The constructor initiates an object of <code>UserDao</code> and passes the connection to its super class.
      *
@@ -25,12 +27,26 @@ public class UserDao extends DaoImp<User, UserCreationData>{
         super(connection);
     }
 
+    /**
+     * The constructor initiates an object of <code>UserDao</code> that acquires its connections from the given provider.
+     *
+     * @param connectionProvider Provider of the connections to execute the SQL-statements.
+     */
+    public UserDao(ConnectionProvider connectionProvider) {
+        super(connectionProvider);
+    }
+
     @Override
-    protected PreparedStatement getCreateStatement(final UserCreationData user) {
+    protected String getTableName() {
+        return TABLE_NAME;
+    }
+
+    @Override
+    protected PreparedStatement getCreateStatement(final UserCreationData user, boolean returning) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "INSERT INTO user (username, password) VALUES (?, ?)";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "INSERT INTO user (username, password) VALUES (?, ?)" + (returning ? RETURNING_ALL : "");
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, user.username());
             preparedStatement.setString(2, user.password());
         } catch (SQLException exception) {
@@ -44,7 +60,7 @@ public class UserDao extends DaoImp<User, UserCreationData>{
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM user WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, key);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -62,7 +78,7 @@ public class UserDao extends DaoImp<User, UserCreationData>{
         PreparedStatement preparedStatement = null;
         try {
             final String SQL = "SELECT * FROM user";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -85,9 +101,9 @@ public class UserDao extends DaoImp<User, UserCreationData>{
         try {
             final String SQL = "UPDATE user SET " +
                     "username = ?, " +
-                    "password = ?, " +
+                    "password = ? " +
                     "WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setString(1, user.getUsername());
             preparedStatement.setString(2, user.getPassword());
             preparedStatement.setLong(3, user.getId());
@@ -101,8 +117,8 @@ public class UserDao extends DaoImp<User, UserCreationData>{
     protected PreparedStatement getDeleteStatement(final long key) {
         PreparedStatement preparedStatement = null;
         try {
-            final String SQL = "DELETE FROM user WHERE id = ?";
-            preparedStatement = this.connection.prepareStatement(SQL);
+            final String SQL = "DELETE FROM user WHERE id = ?" + RETURNING_ALL;
+            preparedStatement = this.prepareStatement(SQL);
             preparedStatement.setLong(1, key);
         } catch (SQLException exception) {
             exception.printStackTrace();
@@ -119,11 +135,14 @@ public class UserDao extends DaoImp<User, UserCreationData>{
     public boolean doesUserExist(final String username) {
         String SQL = "SELECT 1 FROM user WHERE username = ? LIMIT 1";
 
-        try (PreparedStatement preparedStatement = this.connection.prepareStatement(SQL)) {
-            preparedStatement.setString(1, username);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                return resultSet.next(); // Returns true if a result is found
-            }
+        try {
+            return read(() -> {
+                PreparedStatement preparedStatement = this.prepareStatement(SQL);
+                preparedStatement.setString(1, username);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    return resultSet.next(); // Returns true if a result is found
+                }
+            });
         } catch (SQLException exception) {
             exception.printStackTrace();
             return false;
@@ -142,15 +161,19 @@ public class UserDao extends DaoImp<User, UserCreationData>{
         String SQL = "SELECT password FROM user WHERE username = ?";
         String hashedPassword = HashPassword.hashPassword(password);
 
-        try (PreparedStatement preparedStatement = this.connection.prepareStatement(SQL)) {
-            preparedStatement.setString(1, username);
-
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (resultSet.next()) {
-                    String storedPassword = resultSet.getString("password");
-                    return hashedPassword.equals(storedPassword);
+        try {
+            return read(() -> {
+                PreparedStatement preparedStatement = this.prepareStatement(SQL);
+                preparedStatement.setString(1, username);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        String storedPassword = resultSet.getString("password");
+                        return hashedPassword.equals(storedPassword);
+                    }
                 }
-            }
+                return false;
+            });
         } catch (SQLException exception) {
             exception.printStackTrace();
         }
@@ -39,7 +39,7 @@ public class Caregiver extends Person {
      * @throws SQLException If the result set is empty.
      */
     public static Caregiver fromResultSet(ResultSet result) throws SQLException {
-        var archivedOn = result.getString(5) == null ? null : DateConverter.convertStringToLocalDate(result.getString(5));
+        var archivedOn = DateConverter.readLocalDate(result, 5);
 
         return new Caregiver(result.getLong(1), result.getString(2),
                 result.getString(3), result.getString(4), archivedOn);
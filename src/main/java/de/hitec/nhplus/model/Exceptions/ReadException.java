@@ -0,0 +1,15 @@
+package de.hitec.nhplus.model.Exceptions;
+
+/**
+ * Exception class for exceptions thrown by the DAO when reading entities.
+ */
+public class ReadException extends DaoExeption {
+    /**
+     * Constructor for the <code>ReadException</code> class.
+     *
+     * @param message The message of the exception.
+     */
+    public ReadException(String message) {
+        super(message);
+    }
+}
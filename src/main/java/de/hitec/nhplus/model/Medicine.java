@@ -25,11 +25,11 @@ public class Medicine implements Entity {
      * @param storage        Storage of the medicine.
      * @param expirationDate Expiration date of the medicine.
      */
-    private Medicine(long id, String name, String storage, String expirationDate) {
+    private Medicine(long id, String name, String storage, LocalDate expirationDate) {
         this.id = id;
         this.name = name;
         this.storage = storage;
-        this.expirationDate = DateConverter.convertStringToLocalDate(expirationDate);
+        this.expirationDate = expirationDate;
     }
 
     /**
@@ -44,7 +44,7 @@ public class Medicine implements Entity {
         long id = result.getLong(1);
         String name = result.getString(2);
         String storage = result.getString(3);
-        String expirationDate = result.getString(4);
+        LocalDate expirationDate = DateConverter.readLocalDate(result, 4);
 
         return new Medicine(id, name, storage, expirationDate);
     }
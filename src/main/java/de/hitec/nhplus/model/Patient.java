@@ -48,10 +48,10 @@ public class Patient extends Person {
      * @throws SQLException If the result set is empty.
      */
     public static Patient fromResultSet(ResultSet result) throws SQLException {
-        var archivedOn = result.getString(7) == null ? null : DateConverter.convertStringToLocalDate(result.getString(7));
+        var archivedOn = DateConverter.readLocalDate(result, 7);
 
         return new Patient(result.getInt(1), result.getString(2),
-                result.getString(3), DateConverter.convertStringToLocalDate(result.getString(4)),
+                result.getString(3), DateConverter.readLocalDate(result, 4),
                 result.getString(5), result.getString(6), archivedOn);
     }
 
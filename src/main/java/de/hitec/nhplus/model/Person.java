@@ -53,6 +53,10 @@ public abstract class Person implements Entity, Archivable {
         return this.getSurname() + " " + this.getFirstName();
     }
 
+    public LocalDate getArchivedOn() {
+        return archivedOn;
+    }
+
     @Override
     public boolean isArchived() {
         return archivedOn != null;
@@ -56,12 +56,12 @@ public class Treatment implements Entity, Archivable {
      * @throws SQLException If the result set is empty.
      */
     public static Treatment fromResultSet(ResultSet result) throws SQLException {
-        var archivedOn = result.getString(10) == null ? null : DateConverter.convertStringToLocalDate(result.getString(10));
+        var archivedOn = DateConverter.readLocalDate(result, 10);
 
         return new Treatment(result.getLong(1), result.getLong(2),
-                DateConverter.convertStringToLocalDate(result.getString(3)),
-                DateConverter.convertStringToLocalTime(result.getString(4)),
-                DateConverter.convertStringToLocalTime(result.getString(5)),
+                DateConverter.readLocalDate(result, 3),
+                DateConverter.readLocalTime(result, 4),
+                DateConverter.readLocalTime(result, 5),
                 result.getString(6), result.getString(7), result.getLong(8), result.getLong(9), archivedOn);
     }
 
@@ -86,6 +86,18 @@ public class Treatment implements Entity, Archivable {
         return end.toString();
     }
 
+    public LocalDate getLocalDate() {
+        return date;
+    }
+
+    public LocalTime getLocalBegin() {
+        return begin;
+    }
+
+    public LocalTime getLocalEnd() {
+        return end;
+    }
+
     public void setDate(String date) {
         this.date = DateConverter.convertStringToLocalDate(date);
     }
@@ -0,0 +1,117 @@
+package de.hitec.nhplus.model;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Read model of a treatment together with the data of the patient, caregiver and medicine it references, as shown in
+ * the treatment views. Filled by a single query joining the four tables.
+ */
+public class TreatmentDetails implements Entity {
+    private final Treatment treatment;
+    private final String patientSurname;
+    private final String patientFirstName;
+    private final String patientCareLevel;
+    private final String caregiverName;
+    private final String medicineName;
+
+    /**
+     * Private constructor to initiate an object of class <code>TreatmentDetails</code> from the database.
+     *
+     * @param treatment        The treatment.
+     * @param patientSurname   Surname of the treated patient, <code>null</code> if the patient does not exist.
+     * @param patientFirstName First name of the treated patient.
+     * @param patientCareLevel Care level of the treated patient.
+     * @param caregiverName    Full name of the caregiver, <code>null</code> if the caregiver does not exist.
+     * @param medicineName     Name of the medicine, <code>null</code> if the medicine does not exist.
+     */
+    private TreatmentDetails(Treatment treatment, String patientSurname, String patientFirstName,
+                             String patientCareLevel, String caregiverName, String medicineName) {
+        this.treatment = treatment;
+        this.patientSurname = patientSurname;
+        this.patientFirstName = patientFirstName;
+        this.patientCareLevel = patientCareLevel;
+        this.caregiverName = caregiverName;
+        this.medicineName = medicineName;
+    }
+
+    /**
+     * Creates new treatment details from a result set. The first columns have to be the columns of the treatment
+     * table, the joined columns are read by their labels <code>patient_surname</code>,
+     * <code>patient_firstname</code>, <code>patient_carelevel</code>, <code>caregiver_surname</code>,
+     * <code>caregiver_firstname</code> and <code>medicine_name</code>.
+     *
+     * @param result The result set to create the treatment details from.
+     * @return The treatment details created from the result set.
+     * @throws SQLException If the result set is empty.
+     */
+    public static TreatmentDetails fromResultSet(ResultSet result) throws SQLException {
+        var treatment = Treatment.fromResultSet(result);
+
+        var caregiverSurname = result.getString("caregiver_surname");
+        // same format as Person.getFullName()
+        var caregiverName = caregiverSurname == null ? null
+                : caregiverSurname + " " + result.getString("caregiver_firstname");
+
+        return new TreatmentDetails(treatment, result.getString("patient_surname"),
+                result.getString("patient_firstname"), result.getString("patient_carelevel"), caregiverName,
+                result.getString("medicine_name"));
+    }
+
+    public Treatment getTreatment() {
+        return treatment;
+    }
+
+    public long getId() {
+        return treatment.getId();
+    }
+
+    public String getDate() {
+        return treatment.getDate();
+    }
+
+    public String getBegin() {
+        return treatment.getBegin();
+    }
+
+    public String getEnd() {
+        return treatment.getEnd();
+    }
+
+    public String getDescription() {
+        return treatment.getDescription();
+    }
+
+    public String getPatientSurname() {
+        return patientSurname;
+    }
+
+    public String getPatientFirstName() {
+        return patientFirstName;
+    }
+
+    /**
+     * Gets the full name of the treated patient in the same format as <code>Person.getFullName()</code>.
+     *
+     * @return the full name of the patient, <code>null</code> if the patient does not exist
+     */
+    public String getPatientName() {
+        return patientSurname == null ? null : patientSurname + " " + patientFirstName;
+    }
+
+    public String getPatientCareLevel() {
+        return patientCareLevel;
+    }
+
+    public String getCaregiverName() {
+        return caregiverName;
+    }
+
+    public String getMedicineName() {
+        return medicineName;
+    }
+
+    public boolean isArchived() {
+        return treatment.isArchived();
+    }
+}
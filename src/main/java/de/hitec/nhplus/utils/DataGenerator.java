@@ -0,0 +1,442 @@
+package de.hitec.nhplus.utils;
+
+import de.hitec.nhplus.datastorage.CaregiverDao;
+import de.hitec.nhplus.datastorage.ConnectionPool;
+import de.hitec.nhplus.datastorage.MedicineDao;
+import de.hitec.nhplus.datastorage.PatientDao;
+import de.hitec.nhplus.datastorage.SchemaMigrator;
+import de.hitec.nhplus.datastorage.TreatmentDao;
+import de.hitec.nhplus.model.Caregiver;
+import de.hitec.nhplus.model.Patient;
+import de.hitec.nhplus.model.CreationData.CaregiverCreationData;
+import de.hitec.nhplus.model.CreationData.MedicineCreationData;
+import de.hitec.nhplus.model.CreationData.PatientCreationData;
+import de.hitec.nhplus.model.CreationData.TreatmentCreationData;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static de.hitec.nhplus.utils.Settings.readDecimal;
+import static de.hitec.nhplus.utils.Settings.readNumber;
+import static de.hitec.nhplus.utils.Settings.reportInvalid;
+
+/**
+ * The <code>DataGenerator</code> fills a database with a large, synthetic data set. The data is generated from a seed,
+ * the same settings always produce the same rows.
+ * <p>
+ * The nursing home is split into wards. Every ward has its own patients, rooms and caregivers. Every patient has
+ * treatments spread over the configured number of years. Archived patients left the home at some point in the past,
+ * their treatments end at that date and are archived with them. Some caregivers do most of the work of their ward,
+ * the workload follows a Zipf distribution.
+ * </p>
+ * <p>
+ * The rows are written with <code>insertAll()</code> in chunks, each chunk in its own transaction. A generated
+ * database can be saved as a fixture file with <code>saveFixture()</code>, which is what the class does when it is
+ * executed with <code>--out=file</code>:
+ * </p>
+ * <pre>
+ * java de.hitec.nhplus.utils.DataGenerator --wards=20 --seed=7 --out=target/fixtures/large.db
+ * </pre>
+ */
+public class DataGenerator {
+
+    /**
+     * Settings of a generated data set.
+     *
+     * @param seed                   Seed of the random numbers.
+     * @param wards                  Number of wards.
+     * @param patientsPerWard        Number of patients of every ward.
+     * @param caregiversPerWard      Number of caregivers of every ward.
+     * @param treatmentsPerPatient   Number of treatments of every patient.
+     * @param years                  Number of years the treatments of a patient are spread over.
+     * @param medicines              Number of medicines.
+     * @param archivedPatientRatio   Share of patients that left the home and are archived.
+     * @param archivedCaregiverRatio Share of caregivers that left the home and are archived.
+     * @param caregiverSkew          Exponent of the Zipf distribution of the caregiver workload, <code>0</code> spreads
+     *                               the treatments evenly.
+     * @param referenceDate          Date the data set ends at, usually today.
+     */
+    public record Settings(long seed, int wards, int patientsPerWard, int caregiversPerWard, int treatmentsPerPatient,
+                           int years, int medicines, double archivedPatientRatio, double archivedCaregiverRatio,
+                           double caregiverSkew, LocalDate referenceDate) {
+
+        /**
+         * Returns the default settings: four wards with 30 patients and 8 caregivers each, 1000 treatments over ten
+         * years per patient.
+         *
+         * @return The default settings.
+         */
+        public static Settings defaults() {
+            return new Settings(42, 4, 30, 8, 1000, 10, 40, 0.3, 0.2, 1.2, LocalDate.now());
+        }
+
+        /**
+         * Reads settings from command line arguments of the form <code>--name=value</code>, named like the components
+         * of this record. Missing or invalid values keep their default.
+         *
+         * @param args Command line arguments.
+         * @return The settings.
+         */
+        public static Settings fromArguments(String[] args) {
+            Properties properties = readArguments(args);
+            Settings defaults = Settings.defaults();
+
+            LocalDate referenceDate = defaults.referenceDate();
+            String date = properties.getProperty("referenceDate");
+            if (date != null) {
+                try {
+                    referenceDate = DateConverter.convertStringToLocalDate(date);
+                } catch (DateTimeParseException exception) {
+                    reportInvalid("referenceDate", date, referenceDate);
+                }
+            }
+
+            return new Settings(
+                    readNumber(properties, "seed", defaults.seed()),
+                    (int) Math.max(1, readNumber(properties, "wards", defaults.wards())),
+                    (int) Math.max(1, readNumber(properties, "patientsPerWard", defaults.patientsPerWard())),
+                    (int) Math.max(1, readNumber(properties, "caregiversPerWard", defaults.caregiversPerWard())),
+                    (int) Math.max(0, readNumber(properties, "treatmentsPerPatient", defaults.treatmentsPerPatient())),
+                    (int) Math.max(1, readNumber(properties, "years", defaults.years())),
+                    (int) Math.max(1, readNumber(properties, "medicines", defaults.medicines())),
+                    readRatio(properties, "archivedPatientRatio", defaults.archivedPatientRatio()),
+                    readRatio(properties, "archivedCaregiverRatio", defaults.archivedCaregiverRatio()),
+                    Math.max(0, readDecimal(properties, "caregiverSkew", defaults.caregiverSkew())),
+                    referenceDate);
+        }
+
+        /**
+         * Returns the total number of treatments of the data set.
+         *
+         * @return Number of treatments.
+         */
+        public long treatments() {
+            return (long) this.wards * this.patientsPerWard * this.treatmentsPerPatient;
+        }
+    }
+
+    private static final int CHUNK_SIZE = 10_000;
+
+    // the first rooms of a ward are single rooms, the others double rooms
+    private static final int SINGLE_ROOMS = 4;
+
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Bernd", "Christa", "Dieter", "Elisabeth", "Friedrich", "Gertrud", "Hans", "Ingrid", "Jürgen",
+            "Karin", "Lothar", "Maria", "Norbert", "Olga", "Peter", "Renate", "Siegfried", "Ursula", "Werner"
+    };
+    private static final String[] SURNAMES = {
+            "Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer", "Wagner", "Becker", "Schulz", "Hoffmann",
+            "Koch", "Richter", "Klein", "Wolf", "Neumann", "Schwarz", "Zimmermann", "Braun", "Hofmann", "Yilmaz"
+    };
+    private static final String[] DESCRIPTIONS = {
+            "Waschen", "Gespräch", "Spaziergang", "Physiotherapie", "KG", "Toilettengang", "Medikamentengabe",
+            "Verbandswechsel"
+    };
+    private static final String[] REMARKS = {
+            "Ohne Befund.", "Patient war gut gelaunt.", "Patient klagt über Schmerzen.", "Patient war unruhig.",
+            "Angehörige waren anwesend.", "Patient hat gut mitgearbeitet."
+    };
+    private static final String[] DRUGS = {
+            "Amoxicillin", "Lisinopril", "Ibuprofen", "Metformin", "Simvastatin", "Omeprazole", "Albuterol",
+            "Sertraline", "Loratadine", "Prednisone"
+    };
+    private static final int[] DOSES = {5, 10, 20, 50, 200, 500};
+
+    private final Settings settings;
+
+    /**
+     * Creates a generator for the given settings.
+     *
+     * @param settings Settings of the data set.
+     */
+    public DataGenerator(Settings settings) {
+        this.settings = settings;
+    }
+
+    /**
+     * Generates the data set into the given database. The schema has to be migrated already and the tables are
+     * expected to be empty.
+     *
+     * @param connection Connection to the database.
+     * @return The number of generated treatments.
+     */
+    public long generate(Connection connection) {
+        Random random = new Random(this.settings.seed());
+        LocalDate today = this.settings.referenceDate();
+
+        MedicineDao medicineDao = new MedicineDao(connection);
+        List<MedicineCreationData> medicines = new ArrayList<>();
+        for (int i = 0; i < this.settings.medicines(); i++) {
+            medicines.add(new MedicineCreationData(DRUGS[i % DRUGS.length] + " " + DOSES[random.nextInt(DOSES.length)]
+                    + "mg", "Regal " + (char) ('A' + random.nextInt(6)), today.plusDays(random.nextInt(3 * 365))));
+        }
+        long firstMedicine = medicineDao.createAll(medicines).get(0).getId();
+
+        TreatmentDao treatmentDao = new TreatmentDao(connection);
+        List<TreatmentCreationData> treatments = new ArrayList<>(CHUNK_SIZE);
+        long generated = 0;
+
+        for (int ward = 1; ward <= this.settings.wards(); ward++) {
+            List<Caregiver> caregivers = this.generateCaregivers(new CaregiverDao(connection), random, today);
+            List<Patient> patients = this.generatePatients(new PatientDao(connection), random, today, ward);
+            double[] workload = cumulativeZipf(caregivers.size(), this.settings.caregiverSkew());
+
+            for (Patient patient : patients) {
+                // archived patients were treated until they left, the others until today
+                LocalDate end = patient.getArchivedOn() != null ? patient.getArchivedOn() : today;
+                LocalDate start = end.minusYears(this.settings.years());
+                long days = end.toEpochDay() - start.toEpochDay();
+
+                for (int i = 0; i < this.settings.treatmentsPerPatient(); i++) {
+                    LocalDate date = start.plusDays(random.nextLong(days + 1));
+                    LocalTime begin = LocalTime.of(6 + random.nextInt(14), 5 * random.nextInt(12));
+                    LocalTime finish = begin.plusMinutes(15 + 15L * random.nextInt(6));
+
+                    Caregiver caregiver = caregivers.get(pick(workload, random));
+                    if (caregiver.getArchivedOn() != null && date.isAfter(caregiver.getArchivedOn())) {
+                        // the caregiver had left already, the first caregiver of a ward never leaves
+                        caregiver = caregivers.get(0);
+                    }
+
+                    treatments.add(new TreatmentCreationData(patient.getId(), date, begin, finish,
+                            DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], REMARKS[random.nextInt(REMARKS.length)],
+                            caregiver.getId(), firstMedicine + random.nextInt(this.settings.medicines()),
+                            patient.getArchivedOn()));
+
+                    if (treatments.size() == CHUNK_SIZE) {
+                        generated += treatmentDao.insertAll(treatments);
+                        treatments.clear();
+                    }
+                }
+            }
+        }
+        generated += treatmentDao.insertAll(treatments);
+
+        return generated;
+    }
+
+    /**
+     * Creates the caregivers of a ward. The first caregiver is never archived.
+     *
+     * @param dao    DAO of the caregivers.
+     * @param random Generator of the data.
+     * @param today  Reference date of the data set.
+     * @return The created caregivers, ordered by their share of the workload.
+     */
+    private List<Caregiver> generateCaregivers(CaregiverDao dao, Random random, LocalDate today) {
+        List<CaregiverCreationData> caregivers = new ArrayList<>();
+        for (int i = 0; i < this.settings.caregiversPerWard(); i++) {
+            LocalDate archivedOn = i > 0 && random.nextDouble() < this.settings.archivedCaregiverRatio()
+                    ? this.leavingDate(random, today) : null;
+            caregivers.add(new CaregiverCreationData(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    SURNAMES[random.nextInt(SURNAMES.length)],
+                    String.format("+49 176 %08d", random.nextInt(100_000_000)), archivedOn));
+        }
+        return dao.createAll(caregivers);
+    }
+
+    /**
+     * Creates the patients of a ward. The room numbers start with the number of the ward.
+     *
+     * @param dao    DAO of the patients.
+     * @param random Generator of the data.
+     * @param today  Reference date of the data set.
+     * @param ward   Number of the ward.
+     * @return The created patients.
+     */
+    private List<Patient> generatePatients(PatientDao dao, Random random, LocalDate today, int ward) {
+        List<PatientCreationData> patients = new ArrayList<>();
+        for (int i = 0; i < this.settings.patientsPerWard(); i++) {
+            int room = i < SINGLE_ROOMS ? i + 1 : SINGLE_ROOMS + 1 + (i - SINGLE_ROOMS) / 2;
+            LocalDate archivedOn = random.nextDouble() < this.settings.archivedPatientRatio()
+                    ? this.leavingDate(random, today) : null;
+            patients.add(new PatientCreationData(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    SURNAMES[random.nextInt(SURNAMES.length)],
+                    today.minusYears(65 + random.nextInt(35)).minusDays(random.nextInt(365)),
+                    String.valueOf(1 + random.nextInt(5)), String.format("%d%02d", ward, room), archivedOn));
+        }
+        return dao.createAll(patients);
+    }
+
+    /**
+     * Returns the date a patient or caregiver left the home. The dates are spread over one and a half times the
+     * configured years, so some of them are older than the retention period of the archive.
+     *
+     * @param random Generator of the data.
+     * @param today  Reference date of the data set.
+     * @return The date of leaving.
+     */
+    private LocalDate leavingDate(Random random, LocalDate today) {
+        return today.minusDays(random.nextInt(this.settings.years() * 365 * 3 / 2) + 1);
+    }
+
+    /**
+     * Returns the cumulative probabilities of a Zipf distribution over the given number of ranks.
+     *
+     * @param ranks    Number of ranks.
+     * @param exponent Exponent of the distribution.
+     * @return Cumulative probabilities, the last one is <code>1</code>.
+     */
+    private static double[] cumulativeZipf(int ranks, double exponent) {
+        double[] cumulative = new double[ranks];
+        double sum = 0;
+        for (int rank = 0; rank < ranks; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < ranks; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * Picks a rank of the given cumulative distribution.
+     *
+     * @param cumulative Cumulative probabilities.
+     * @param random     Generator of the data.
+     * @return The picked rank.
+     */
+    private static int pick(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+
+    /**
+     * Saves a copy of the given database to the given file with <code>VACUUM INTO</code>. The copy is compacted and
+     * can be reused as a fixture by benchmarks and tests.
+     *
+     * @param connection Connection to the database.
+     * @param file       File to save the database to. It must not exist.
+     * @throws SQLException If the database could not be saved.
+     */
+    public static void saveFixture(Connection connection, Path file) throws SQLException {
+        final String SQL = "VACUUM INTO ?";
+        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+            statement.setString(1, file.toAbsolutePath().toString());
+            statement.execute();
+        }
+    }
+
+    /**
+     * Generates a data set into an in-memory database and saves it to a new fixture file.
+     *
+     * @param settings Settings of the data set.
+     * @param file     File to save the database to. It must not exist.
+     * @return The number of generated treatments.
+     * @throws SQLException If the database could not be generated or saved.
+     */
+    public static long generateFixture(Settings settings, Path file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA foreign_keys = ON");
+            }
+            SchemaMigrator.migrate(connection);
+
+            long treatments = new DataGenerator(settings).generate(connection);
+            saveFixture(connection, file);
+            return treatments;
+        }
+    }
+
+    /**
+     * Main method to run the DataGenerator class.
+     * <br>
+     * Generates a data set with the settings given as <code>--name=value</code> arguments and saves it to the file
+     * given with <code>--out=file</code>. Without <code>--out</code>, the data set is written into the empty database
+     * of the application.
+     *
+     * @param args Command line arguments.
+     */
+    public static void main(String[] args) {
+        Settings settings = Settings.fromArguments(args);
+        String out = readArguments(args).getProperty("out");
+        long start = System.nanoTime();
+
+        try {
+            long treatments;
+            if (out != null) {
+                Path file = Path.of(out);
+                if (Files.exists(file)) {
+                    System.out.println(file + " exists already.");
+                    return;
+                }
+                treatments = generateFixture(settings, file);
+            } else {
+                treatments = generateIntoApplicationDatabase(settings);
+                if (treatments < 0)
+                    return;
+            }
+
+            System.out.println("Generated " + treatments + " treatments in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Generates a data set into the database of the application, if it has no patients yet.
+     *
+     * @param settings Settings of the data set.
+     * @return The number of generated treatments, <code>-1</code> if the database is not empty.
+     * @throws SQLException If the database could not be migrated.
+     */
+    private static long generateIntoApplicationDatabase(Settings settings) throws SQLException {
+        SchemaMigrator.migrate();
+
+        ConnectionPool pool = ConnectionPool.getInstance();
+        Connection connection = pool.acquireWriteConnection();
+        try {
+            if (!new PatientDao(connection).getPage(0, 1).isEmpty()) {
+                System.out.println("The database is not empty, run SetUpDB --wipe first.");
+                return -1;
+            }
+            return new DataGenerator(settings).generate(connection);
+        } finally {
+            pool.releaseWriteConnection(connection);
+        }
+    }
+
+    /**
+     * Reads command line arguments of the form <code>--name=value</code>.
+     *
+     * @param args Command line arguments.
+     * @return The values by their name.
+     */
+    private static Properties readArguments(String[] args) {
+        Properties properties = new Properties();
+        for (String argument : args) {
+            int separator = argument.indexOf('=');
+            if (argument.startsWith("--") && separator > 2) {
+                properties.setProperty(argument.substring(2, separator), argument.substring(separator + 1));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Reads a ratio between <code>0</code> and <code>1</code> of the given key.
+     *
+     * @param properties   Properties to read from.
+     * @param key          Key of the value.
+     * @param defaultValue Value used if the key is missing or invalid.
+     * @return The value of the key.
+     */
+    private static double readRatio(Properties properties, String key, double defaultValue) {
+        return Math.min(1, Math.max(0, readDecimal(properties, key, defaultValue)));
+    }
+}
@@ -1,54 +1,216 @@
 package de.hitec.nhplus.utils;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Utility class to convert between <code>LocalDate</code> and <code>String</code>.
+ * Utility class to convert between <code>LocalDate</code> and <code>String</code>, and between the date and time
+ * types and the numbers they are stored as in the database: dates as days since 1970-01-01 (epoch days) and times as
+ * minutes since midnight.
  */
 public class DateConverter {
 
     private static final String DATE_FORMAT = "yyyy-MM-dd";
     private static final String TIME_FORMAT = "HH:mm";
 
+    // formatters are immutable and thread-safe, so one instance serves every call
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(DATE_FORMAT);
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(TIME_FORMAT);
+
     /**
-     * Converts a <code>String</code> to a <code>LocalDate</code>.
+     * Converts a <code>String</code> to a <code>LocalDate</code>. Strings in the exact format <code>yyyy-MM-dd</code>
+     * are parsed digit by digit, everything else is left to the formatter, which also reports invalid input.
      *
      * @param date The date to convert.
      * @return The converted date.
      */
     public static LocalDate convertStringToLocalDate(String date) {
-        return LocalDate.parse(date, DateTimeFormatter.ofPattern(DATE_FORMAT));
+        if (date.length() == 10 && date.charAt(4) == '-' && date.charAt(7) == '-') {
+            int year = parseDigits(date, 0, 4);
+            int month = parseDigits(date, 5, 7);
+            int day = parseDigits(date, 8, 10);
+
+            // days past the end of the month are adjusted by the formatter, so they take the slow path
+            if (year >= 1 && month >= 1 && month <= 12 && day >= 1 && day <= 28)
+                return LocalDate.of(year, month, day);
+        }
+        return LocalDate.parse(date, DATE_FORMATTER);
     }
 
     /**
-     * Converts a <code>String</code> to a <code>LocalTime</code>.
+     * Converts a <code>String</code> to a <code>LocalTime</code>. Strings in the exact format <code>HH:mm</code> are
+     * parsed digit by digit, everything else is left to the formatter, which also reports invalid input.
      *
      * @param time The time to convert.
      * @return The converted time.
      */
     public static LocalTime convertStringToLocalTime(String time) {
-        return LocalTime.parse(time, DateTimeFormatter.ofPattern(TIME_FORMAT));
+        if (time.length() == 5 && time.charAt(2) == ':') {
+            int hour = parseDigits(time, 0, 2);
+            int minute = parseDigits(time, 3, 5);
+
+            if (hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59)
+                return LocalTime.of(hour, minute);
+        }
+        return LocalTime.parse(time, TIME_FORMATTER);
     }
 
     /**
-     * Converts a <code>LocalDate</code> to a <code>String</code>.
+     * Converts a <code>LocalDate</code> to a <code>String</code> in the format <code>yyyy-MM-dd</code>.
      *
      * @param date The date to convert.
      * @return The converted date.
      */
     public static String convertLocalDateToString(LocalDate date) {
-        return date.format(DateTimeFormatter.ofPattern(DATE_FORMAT));
+        int year = date.getYear();
+        // the pattern prints the year of era, which differs from the year before year 1
+        if (year < 1 || year > 9999)
+            return date.format(DATE_FORMATTER);
+
+        char[] chars = new char[10];
+        writeDigits(chars, 0, 4, year);
+        chars[4] = '-';
+        writeDigits(chars, 5, 7, date.getMonthValue());
+        chars[7] = '-';
+        writeDigits(chars, 8, 10, date.getDayOfMonth());
+        return new String(chars);
     }
 
     /**
-     * Converts a <code>LocalTime</code> to a <code>String</code>.
+     * Converts a <code>LocalTime</code> to a <code>String</code> in the format <code>HH:mm</code>.
      *
      * @param time The time to convert.
      * @return The converted time.
      */
     public static String convertLocalTimeToString(LocalTime time) {
-        return time.format(DateTimeFormatter.ofPattern(TIME_FORMAT));
+        char[] chars = new char[5];
+        writeDigits(chars, 0, 2, time.getHour());
+        chars[2] = ':';
+        writeDigits(chars, 3, 5, time.getMinute());
+        return new String(chars);
+    }
+
+    /**
+     * Parses the decimal digits between <code>start</code> and <code>end</code>.
+     *
+     * @param text  Text containing the digits.
+     * @param start Index of the first digit.
+     * @param end   Index after the last digit.
+     * @return The parsed number, <code>-1</code> if the range contains anything but digits.
+     */
+    private static int parseDigits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Writes a number as decimal digits between <code>start</code> and <code>end</code>, padded with leading zeros.
+     *
+     * @param chars Array to write to.
+     * @param start Index of the first digit.
+     * @param end   Index after the last digit.
+     * @param value The number to write, must fit into the range.
+     */
+    private static void writeDigits(char[] chars, int start, int end, int value) {
+        for (int i = end - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Converts a <code>LocalDate</code> to the number of days since 1970-01-01, the format dates are stored in.
+     *
+     * @param date The date to convert.
+     * @return The epoch day of the date.
+     */
+    public static long convertLocalDateToEpochDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    /**
+     * Converts a number of days since 1970-01-01 to a <code>LocalDate</code>.
+     *
+     * @param epochDay The epoch day to convert.
+     * @return The converted date.
+     */
+    public static LocalDate convertEpochDayToLocalDate(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Converts a <code>LocalTime</code> to the number of minutes since midnight, the format times are stored in.
+     * Seconds are dropped, as the times are shown in the format <code>HH:mm</code>.
+     *
+     * @param time The time to convert.
+     * @return The minute of the day.
+     */
+    public static int convertLocalTimeToMinutes(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Converts a number of minutes since midnight to a <code>LocalTime</code>.
+     *
+     * @param minutes The minute of the day to convert.
+     * @return The converted time.
+     */
+    public static LocalTime convertMinutesToLocalTime(int minutes) {
+        return LocalTime.of(minutes / 60, minutes % 60);
+    }
+
+    /**
+     * Reads a date stored as epoch day from the given column of a result set.
+     *
+     * @param result The result set to read from.
+     * @param column Index of the column.
+     * @return The date, <code>null</code> if the column is <code>NULL</code>.
+     * @throws SQLException          If the column cannot be read.
+     * @throws IllegalStateException If the column does not hold a number, for example a <code>yyyy-MM-dd</code> text
+     *                               of a database that is not migrated to the latest schema.
+     */
+    public static LocalDate readLocalDate(ResultSet result, int column) throws SQLException {
+        Object value = result.getObject(column);
+        if (value == null)
+            return null;
+
+        return DateConverter.convertEpochDayToLocalDate(DateConverter.readNumber(result, column, value).longValue());
+    }
+
+    /**
+     * Reads a time stored as minute of the day from the given column of a result set.
+     *
+     * @param result The result set to read from.
+     * @param column Index of the column.
+     * @return The time, <code>null</code> if the column is <code>NULL</code>.
+     * @throws SQLException          If the column cannot be read.
+     * @throws IllegalStateException If the column does not hold a number, for example a <code>HH:mm</code> text of a
+     *                               database that is not migrated to the latest schema.
+     */
+    public static LocalTime readLocalTime(ResultSet result, int column) throws SQLException {
+        Object value = result.getObject(column);
+        if (value == null)
+            return null;
+
+        return DateConverter.convertMinutesToLocalTime(DateConverter.readNumber(result, column, value).intValue());
+    }
+
+    private static Number readNumber(ResultSet result, int column, Object value) throws SQLException {
+        // getLong() would read the leading digits of a text like '2023-06-03' as 2023 instead of failing
+        if (value instanceof Number number)
+            return number;
+
+        throw new IllegalStateException(String.format(
+                "Column %s holds '%s' instead of a number, the database schema is not up to date",
+                result.getMetaData().getColumnName(column), value));
     }
 }
@@ -1,9 +1,5 @@
 package de.hitec.nhplus.utils;
 
-import de.hitec.nhplus.datastorage.ConnectionBuilder;
-import de.hitec.nhplus.datastorage.DaoFactory;
-import de.hitec.nhplus.datastorage.PatientDao;
-import de.hitec.nhplus.datastorage.TreatmentDao;
 import de.hitec.nhplus.model.CreationData.CaregiverCreationData;
 import de.hitec.nhplus.model.CreationData.MedicineCreationData;
 import de.hitec.nhplus.model.CreationData.PatientCreationData;
@@ -13,136 +9,82 @@ import de.hitec.nhplus.datastorage.*;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 import static de.hitec.nhplus.utils.DateConverter.convertStringToLocalDate;
 import static de.hitec.nhplus.utils.DateConverter.convertStringToLocalTime;
 
 /**
- * Call static class provides to static methods to set up and wipe the database. It uses the class ConnectionBuilder
- * and its path to build up the connection to the database. The class is executable. Executing the class will build
- * up a connection to the database and calls setUpDb() to wipe the database, build up a clean database and fill the
- * database with some test data.
+ * Call static class provides to static methods to set up and wipe the database. The tables are created by the
+ * {@link SchemaMigrator}. The class is executable. Executing the class migrates the database to the latest schema and
+ * fills empty tables with some test data. With the argument <code>--wipe</code>, the database is wiped first.
  */
 public class SetUpDB {
 
     /**
-     * This method wipes the database by dropping the tables. Then the method calls DDL statements to build it up from
-     * scratch and DML statements to fill the database with hard coded test data.
-     */
-    public static void setUpDb() {
-        Connection connection = ConnectionBuilder.getConnection();
-        SetUpDB.wipeDb(connection);
-
-        SetUpDB.setUpTablePatient(connection);
-        SetUpDB.setUpTableTreatment(connection);
-        SetUpDB.setUpTableCaregiver(connection);
-        SetUpDB.setUpTableMedicine(connection);
-
-        SetUpDB.setUpPatients();
-        SetUpDB.setUpTreatments();
-        SetUpDB.setUpCaregivers();
-        SetUpDB.setUpMedicines();
-    }
-
-    /**
-     * Wipes the database by dropping the tables.
+     * This method migrates the database to the latest schema and fills the empty tables with hard coded test data in
+     * one transaction. Existing data is kept. If the migration fails, no test data is inserted.
      *
-     * @param connection current connection to the database
+     * @return <code>true</code> if the database is set up, <code>false</code> if the migration or the setup failed.
      */
-    public static void wipeDb(Connection connection) {
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("DROP TABLE IF EXISTS caregiver");
-            statement.execute("DROP TABLE IF EXISTS patient");
-            statement.execute("DROP TABLE IF EXISTS treatment");
+    public static boolean setUpDb() {
+        try {
+            SchemaMigrator.migrate();
         } catch (SQLException exception) {
-            System.out.println(exception.getMessage());
+            exception.printStackTrace();
+            return false;
         }
-    }
 
-    /**
-     * Creates the patient table in the database.
-     *
-     * @param connection The connection to the database.
-     */
-    public static void setUpTablePatient(Connection connection) {
-        final String SQL = "CREATE TABLE IF NOT EXISTS patient (" +
-                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "   firstname TEXT NOT NULL, " +
-                "   surname TEXT NOT NULL, " +
-                "   dateOfBirth TEXT NOT NULL, " +
-                "   carelevel TEXT NOT NULL, " +
-                "   roomnumber TEXT NOT NULL, " +
-                "   archivedOn TEXT" +
-                ");";
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(SQL);
+        try {
+            // one transaction for all tables, so a failed setup leaves no half filled database behind
+            DaoFactory.getDaoFactory().inTransaction(() -> {
+                SetUpDB.setUpPatients();
+                SetUpDB.setUpTreatments();
+                SetUpDB.setUpCaregivers();
+                SetUpDB.setUpMedicines();
+                return null;
+            });
+            return true;
         } catch (SQLException exception) {
-            System.out.println(exception.getMessage());
+            exception.printStackTrace();
+            return false;
         }
     }
 
     /**
-     * Creates the treatment table in the database.
-     *
-     * @param connection The connection to the database.
+     * Wipes the database by dropping the tables and resetting the schema version, so the next migration creates the
+     * tables from scratch.
      */
-    public static void setUpTableTreatment(Connection connection) {
-        final String SQL = "CREATE TABLE IF NOT EXISTS treatment (" +
-                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "   patientId INTEGER NOT NULL, " +
-                "   treatment_date TEXT NOT NULL, " +
-                "   begin TEXT NOT NULL, " +
-                "   end TEXT NOT NULL, " +
-                "   description TEXT NOT NULL, " +
-                "   remark TEXT NOT NULL," +
-                "   caregiverId INTEGER NOT NULL," +
-                "   medicineId INTEGER," +
-                "   archivedOn TEXT," +
-                "   FOREIGN KEY (patientId) REFERENCES patient (id) ON DELETE CASCADE " +
-                ");";
-
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(SQL);
+    public static void wipeDb() {
+        ConnectionPool pool = ConnectionPool.getInstance();
+        Connection connection;
+        try {
+            connection = pool.acquireWriteConnection();
         } catch (SQLException exception) {
-            System.out.println(exception.getMessage());
+            exception.printStackTrace();
+            return;
         }
-    }
 
-    /**
-     * Creates the caregiver table in the database.
-     *
-     * @param connection The connection to the database.
-     */
-    public static void setUpTableCaregiver(Connection connection) {
-        final String SQL = "CREATE TABLE IF NOT EXISTS caregiver (" +
-                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "   firstname TEXT NOT NULL, " +
-                "   surname TEXT NOT NULL, " +
-                "   phoneNumber TEXT NOT NULL, " +
-                "   archivedOn TEXT" +
-                ");";
-        try (Statement statement = connection.createStatement()) {
-            statement.execute(SQL);
-        } catch (SQLException exception) {
-            System.out.println(exception.getMessage());
+        try {
+            SetUpDB.wipeDb(connection);
+        } finally {
+            pool.releaseWriteConnection(connection);
         }
     }
 
     /**
-     * Creates a new table <code>medicine</code> in the database.
+     * Wipes the database by dropping the tables and resetting the schema version.
      *
-     * @param connection Object of class <code>Connection</code>.
+     * @param connection current connection to the database
      */
-    private static void setUpTableMedicine(Connection connection) {
-        final String SQL = "CREATE TABLE IF NOT EXISTS medicine (" +
-                "   medicineId INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "   name TEXT NOT NULL, " +
-                "   storage TEXT NOT NULL," +
-                "   expirationDate TEXT NOT NULL" +
-                ");";
-
+    public static void wipeDb(Connection connection) {
         try (Statement statement = connection.createStatement()) {
-            statement.execute(SQL);
+            statement.execute("DROP TABLE IF EXISTS treatment");
+            statement.execute("DROP TABLE IF EXISTS caregiver");
+            statement.execute("DROP TABLE IF EXISTS patient");
+            statement.execute("DROP TABLE IF EXISTS medicine");
+            statement.execute("DROP TABLE IF EXISTS " + DaoImp.WATERMARK_TABLE);
+            statement.execute("PRAGMA user_version = 0");
         } catch (SQLException exception) {
             System.out.println(exception.getMessage());
         }
@@ -154,12 +96,14 @@ public class SetUpDB {
     private static void setUpPatients() {
         PatientDao dao = DaoFactory.getDaoFactory().createPatientDAO();
         if (dao.getAll().isEmpty()) {
-            dao.create(new PatientCreationData("Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", null));
-            dao.create(new PatientCreationData("Martina", "Gerdsen", convertStringToLocalDate("1954-08-12"), "5", "010", null));
-            dao.create(new PatientCreationData("Gertrud", "Franzen", convertStringToLocalDate("1949-04-16"), "3", "002", null));
-            dao.create(new PatientCreationData("Ahmet", "Yilmaz", convertStringToLocalDate("1941-02-22"), "3", "013", convertStringToLocalDate("2000-06-03")));
-            dao.create(new PatientCreationData("Hans", "Neumann", convertStringToLocalDate("1955-12-12"), "2", "001", null));
-            dao.create(new PatientCreationData("Elisabeth", "Müller", convertStringToLocalDate("1958-03-07"), "5", "110", null));
+            dao.createAll(List.of(
+                    new PatientCreationData("Seppl", "Herberger", convertStringToLocalDate("1945-12-01"), "4", "202", null),
+                    new PatientCreationData("Martina", "Gerdsen", convertStringToLocalDate("1954-08-12"), "5", "010", null),
+                    new PatientCreationData("Gertrud", "Franzen", convertStringToLocalDate("1949-04-16"), "3", "002", null),
+                    new PatientCreationData("Ahmet", "Yilmaz", convertStringToLocalDate("1941-02-22"), "3", "013", convertStringToLocalDate("2000-06-03")),
+                    new PatientCreationData("Hans", "Neumann", convertStringToLocalDate("1955-12-12"), "2", "001", null),
+                    new PatientCreationData("Elisabeth", "Müller", convertStringToLocalDate("1958-03-07"), "5", "110", null)
+            ));
         }
     }
 
@@ -169,16 +113,18 @@ public class SetUpDB {
     private static void setUpTreatments() {
         TreatmentDao dao = DaoFactory.getDaoFactory().createTreatmentDao();
         if (dao.getAll().isEmpty()) {
-            dao.create(new TreatmentCreationData(1, convertStringToLocalDate("2023-06-03"), convertStringToLocalTime("11:00"), convertStringToLocalTime("15:00"), "Gespräch", "Der Patient hat enorme Angstgefühle und glaubt, er sei überfallen worden. Ihm seien alle Wertsachen gestohlen worden.\nPatient beruhigt sich erst, als alle Wertsachen im Zimmer gefunden worden sind.", 0, 1, null));
-            dao.create(new TreatmentCreationData(1, convertStringToLocalDate("2023-06-05"), convertStringToLocalTime("11:00"), convertStringToLocalTime("12:30"), "Gespräch", "Patient irrt auf der Suche nach gestohlenen Wertsachen durch die Etage und bezichtigt andere Bewohner des Diebstahls.\nPatient wird in seinen Raum zurückbegleitet und erhält Beruhigungsmittel.", 4, 0, null));
-            dao.create(new TreatmentCreationData(2, convertStringToLocalDate("2023-06-04"), convertStringToLocalTime("07:30"), convertStringToLocalTime("08:00"), "Waschen", "Patient mit Waschlappen gewaschen und frisch angezogen. Patient gewendet.", 5, 4, null));
-            dao.create(new TreatmentCreationData(1, convertStringToLocalDate("2023-06-06"), convertStringToLocalTime("15:10"), convertStringToLocalTime("16:00"), "Spaziergang", "Spaziergang im Park, Patient döst  im Rollstuhl ein", 3, 6, null));
-            dao.create(new TreatmentCreationData(1, convertStringToLocalDate("2023-06-08"), convertStringToLocalTime("15:00"), convertStringToLocalTime("16:00"), "Spaziergang", "Parkspaziergang; Patient ist heute lebhafter und hat klare Momente; erzählt von seiner Tochter", 0, 4, null));
-            dao.create(new TreatmentCreationData(2, convertStringToLocalDate("2023-06-07"), convertStringToLocalTime("11:00"), convertStringToLocalTime("11:30"), "Waschen", "Waschen per Dusche auf einem Stuhl; Patientin gewendet;", 2, 3, null));
-            dao.create(new TreatmentCreationData(5, convertStringToLocalDate("2023-06-08"), convertStringToLocalTime("15:00"), convertStringToLocalTime("15:30"), "Physiotherapie", "Übungen zur Stabilisation und Mobilisierung der Rückenmuskulatur", 0, 7, null));
-            dao.create(new TreatmentCreationData(4, convertStringToLocalDate("2023-08-24"), convertStringToLocalTime("09:30"), convertStringToLocalTime("10:15"), "KG", "Lympfdrainage", 3, 7, null));
-            dao.create(new TreatmentCreationData(6, convertStringToLocalDate("2023-08-31"), convertStringToLocalTime("13:30"), convertStringToLocalTime("13:45"), "Toilettengang", "Hilfe beim Toilettengang; Patientin klagt über Schmerzen beim Stuhlgang. Gabe von Iberogast", 5, 3, null));
-            dao.create(new TreatmentCreationData(6, convertStringToLocalDate("2023-09-01"), convertStringToLocalTime("16:00"), convertStringToLocalTime("17:00"), "KG", "Massage der Extremitäten zur Verbesserung der Durchblutung", 5, 1, null));
+            dao.createAll(List.of(
+                    new TreatmentCreationData(1, convertStringToLocalDate("2023-06-03"), convertStringToLocalTime("11:00"), convertStringToLocalTime("15:00"), "Gespräch", "Der Patient hat enorme Angstgefühle und glaubt, er sei überfallen worden. Ihm seien alle Wertsachen gestohlen worden.\nPatient beruhigt sich erst, als alle Wertsachen im Zimmer gefunden worden sind.", 0, 1, null),
+                    new TreatmentCreationData(1, convertStringToLocalDate("2023-06-05"), convertStringToLocalTime("11:00"), convertStringToLocalTime("12:30"), "Gespräch", "Patient irrt auf der Suche nach gestohlenen Wertsachen durch die Etage und bezichtigt andere Bewohner des Diebstahls.\nPatient wird in seinen Raum zurückbegleitet und erhält Beruhigungsmittel.", 4, 0, null),
+                    new TreatmentCreationData(2, convertStringToLocalDate("2023-06-04"), convertStringToLocalTime("07:30"), convertStringToLocalTime("08:00"), "Waschen", "Patient mit Waschlappen gewaschen und frisch angezogen. Patient gewendet.", 5, 4, null),
+                    new TreatmentCreationData(1, convertStringToLocalDate("2023-06-06"), convertStringToLocalTime("15:10"), convertStringToLocalTime("16:00"), "Spaziergang", "Spaziergang im Park, Patient döst  im Rollstuhl ein", 3, 6, null),
+                    new TreatmentCreationData(1, convertStringToLocalDate("2023-06-08"), convertStringToLocalTime("15:00"), convertStringToLocalTime("16:00"), "Spaziergang", "Parkspaziergang; Patient ist heute lebhafter und hat klare Momente; erzählt von seiner Tochter", 0, 4, null),
+                    new TreatmentCreationData(2, convertStringToLocalDate("2023-06-07"), convertStringToLocalTime("11:00"), convertStringToLocalTime("11:30"), "Waschen", "Waschen per Dusche auf einem Stuhl; Patientin gewendet;", 2, 3, null),
+                    new TreatmentCreationData(5, convertStringToLocalDate("2023-06-08"), convertStringToLocalTime("15:00"), convertStringToLocalTime("15:30"), "Physiotherapie", "Übungen zur Stabilisation und Mobilisierung der Rückenmuskulatur", 0, 7, null),
+                    new TreatmentCreationData(4, convertStringToLocalDate("2023-08-24"), convertStringToLocalTime("09:30"), convertStringToLocalTime("10:15"), "KG", "Lympfdrainage", 3, 7, null),
+                    new TreatmentCreationData(6, convertStringToLocalDate("2023-08-31"), convertStringToLocalTime("13:30"), convertStringToLocalTime("13:45"), "Toilettengang", "Hilfe beim Toilettengang; Patientin klagt über Schmerzen beim Stuhlgang. Gabe von Iberogast", 5, 3, null),
+                    new TreatmentCreationData(6, convertStringToLocalDate("2023-09-01"), convertStringToLocalTime("16:00"), convertStringToLocalTime("17:00"), "KG", "Massage der Extremitäten zur Verbesserung der Durchblutung", 5, 1, null)
+            ));
         }
     }
 
@@ -188,10 +134,12 @@ public class SetUpDB {
     private static void setUpCaregivers() {
         CaregiverDao dao = DaoFactory.getDaoFactory().createCaregiverDAO();
         if (dao.getAll().isEmpty()) {
-            dao.create(new CaregiverCreationData("Hans", "Müller", "+49 176 12345678", null));
-            dao.create(new CaregiverCreationData("Peter", "Schmidt", "+49 176 23456789", null));
-            dao.create(new CaregiverCreationData("Maria", "Meier", "+49 176 34567890", null));
-            dao.create(new CaregiverCreationData("Anna", "Schneider", "+49 176 45678901", null));
+            dao.createAll(List.of(
+                    new CaregiverCreationData("Hans", "Müller", "+49 176 12345678", null),
+                    new CaregiverCreationData("Peter", "Schmidt", "+49 176 23456789", null),
+                    new CaregiverCreationData("Maria", "Meier", "+49 176 34567890", null),
+                    new CaregiverCreationData("Anna", "Schneider", "+49 176 45678901", null)
+            ));
         }
     }
 
@@ -200,16 +148,21 @@ public class SetUpDB {
      */
     private static void setUpMedicines() {
         MedicineDao dao = DaoFactory.getDaoFactory().createMedicineDAO();
-        dao.create(new MedicineCreationData("Amoxicillin 500mg", "Shelf A", convertStringToLocalDate("2026-03-15")));
-        dao.create(new MedicineCreationData("Lisinopril 10mg", "Shelf B", convertStringToLocalDate("2025-11-30")));
-        dao.create(new MedicineCreationData("Ibuprofen 200mg", "Shelf C", convertStringToLocalDate("2027-01-20")));
-        dao.create(new MedicineCreationData("Metformin 500mg", "Shelf A", convertStringToLocalDate("2025-08-10")));
-        dao.create(new MedicineCreationData("Simvastatin 20mg", "Shelf B", convertStringToLocalDate("2026-06-25")));
-        dao.create(new MedicineCreationData("Omeprazole 20mg", "Shelf C", convertStringToLocalDate("2025-12-05")));
-        dao.create(new MedicineCreationData("Albuterol Inhaler", "Shelf A", convertStringToLocalDate("2026-04-01")));
-        dao.create(new MedicineCreationData("Sertraline 50mg", "Shelf B", convertStringToLocalDate("2027-02-18")));
-        dao.create(new MedicineCreationData("Loratadine 10mg", "Shelf C", convertStringToLocalDate("2026-10-11")));
-        dao.create(new MedicineCreationData("Prednisone 5mg", "Shelf A", convertStringToLocalDate("2025-09-22")));
+        if (!dao.getAll().isEmpty())
+            return;
+
+        dao.createAll(List.of(
+                new MedicineCreationData("Amoxicillin 500mg", "Shelf A", convertStringToLocalDate("2026-03-15")),
+                new MedicineCreationData("Lisinopril 10mg", "Shelf B", convertStringToLocalDate("2025-11-30")),
+                new MedicineCreationData("Ibuprofen 200mg", "Shelf C", convertStringToLocalDate("2027-01-20")),
+                new MedicineCreationData("Metformin 500mg", "Shelf A", convertStringToLocalDate("2025-08-10")),
+                new MedicineCreationData("Simvastatin 20mg", "Shelf B", convertStringToLocalDate("2026-06-25")),
+                new MedicineCreationData("Omeprazole 20mg", "Shelf C", convertStringToLocalDate("2025-12-05")),
+                new MedicineCreationData("Albuterol Inhaler", "Shelf A", convertStringToLocalDate("2026-04-01")),
+                new MedicineCreationData("Sertraline 50mg", "Shelf B", convertStringToLocalDate("2027-02-18")),
+                new MedicineCreationData("Loratadine 10mg", "Shelf C", convertStringToLocalDate("2026-10-11")),
+                new MedicineCreationData("Prednisone 5mg", "Shelf A", convertStringToLocalDate("2025-09-22"))
+        ));
     }
 
     /**
@@ -217,9 +170,16 @@ public class SetUpDB {
      * <br>
      * Sets up the database tables and fills them with some test data.
      *
-     * @param args Command line arguments.
+     * Exits with status <code>1</code> if the database could not be set up.
+     *
+     * @param args Command line arguments, <code>--wipe</code> wipes the database first.
      */
     public static void main(String[] args) {
-        SetUpDB.setUpDb();
+        if (List.of(args).contains("--wipe")) {
+            SetUpDB.wipeDb();
+        }
+        if (!SetUpDB.setUpDb()) {
+            System.exit(1);
+        }
     }
 }
@@ -1,62 +1,64 @@
 package de.hitec.nhplus.utils;
 
-import de.hitec.nhplus.datastorage.ConnectionBuilder;
+import de.hitec.nhplus.datastorage.ConnectionPool;
 import de.hitec.nhplus.datastorage.DaoFactory;
+import de.hitec.nhplus.datastorage.SchemaMigrator;
 import de.hitec.nhplus.datastorage.UserDao;
 import de.hitec.nhplus.model.CreationData.UserCreationData;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 
 /**
- * Call static class provides to static methods to set up and wipe the database. It uses the class ConnectionBuilder
- * and its path to build up the connection to the database. The class is executable. Executing the class will build
- * up a connection to the database and calls setUpUserDb() to wipe the database, build up a clean database and fill the
- * database with some test data.
+ * Call static class provides to static methods to set up and wipe the user table. The table is created by the
+ * {@link SchemaMigrator}. The class is executable. Executing the class migrates the database to the latest schema and
+ * fills an empty user table with some test data. With the argument <code>--wipe</code>, the user table is wiped first.
  */
 public class SetUpUserDB {
 
     /**
-     * This method wipes the database by dropping the tables. Then the method calls DDL statements to build it up from
-     * scratch and DML statements to fill the database with hard coded test data.
+     * This method migrates the database to the latest schema and fills an empty user table with hard coded test data.
+     * Existing users are kept. If the migration fails, no test data is inserted.
+     *
+     * @return <code>true</code> if the user table is set up, <code>false</code> if the migration failed.
      */
-    public static void setUpUserDB() {
-        Connection connection = ConnectionBuilder.getConnection();
-        SetUpUserDB.wipeDb(connection);
-
-        SetUpUserDB.setUpTableUsers(connection);
+    public static boolean setUpUserDB() {
+        try {
+            SchemaMigrator.migrate();
+        } catch (SQLException exception) {
+            exception.printStackTrace();
+            return false;
+        }
 
         SetUpUserDB.setUpUsers();
+        return true;
     }
 
     /**
-     * This method wipes the database by dropping the tables.
+     * This method wipes the user table by deleting all users and resetting its id counter. The schema is kept, so the
+     * other tables are not touched.
      */
-    public static void wipeDb(Connection connection) {
-        try (Statement statement = connection.createStatement()) {
-            statement.execute("DROP TABLE IF EXISTS user");
+    public static void wipeDb() {
+        ConnectionPool pool = ConnectionPool.getInstance();
+        Connection connection;
+        try {
+            connection = pool.acquireWriteConnection();
         } catch (SQLException exception) {
-            System.out.println(exception.getMessage());
+            exception.printStackTrace();
+            return;
         }
-    }
 
-    /**
-     * Creates the user table in the database.
-     *
-     * @param connection The connection to the database.
-     */
-    private static void setUpTableUsers(Connection connection) {
-        final String SQL = "CREATE TABLE IF NOT EXISTS user (" +
-                "   id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "   username TEXT NOT NULL, " +
-                "   password TEXT NOT NULL " +
-                ");";
         try (Statement statement = connection.createStatement()) {
-            statement.execute(SQL);
+            statement.execute("DELETE FROM user");
+            // AUTOINCREMENT keeps the largest id in sqlite_sequence, the next user gets id 1 again without it
+            statement.execute("DELETE FROM sqlite_sequence WHERE name = 'user'");
         } catch (SQLException exception) {
             System.out.println(exception.getMessage());
+        } finally {
+            pool.releaseWriteConnection(connection);
         }
     }
 
@@ -66,10 +68,12 @@ public class SetUpUserDB {
     private static void setUpUsers() {
         UserDao dao = DaoFactory.getDaoFactory().createUserDAO();
         if (dao.getAll().isEmpty()) {
-            dao.create(new UserCreationData("Luca", HashPassword.hashPassword("15 Hogrider!")));
-            dao.create(new UserCreationData("Leon", HashPassword.hashPassword("420")));
-            dao.create(new UserCreationData("Matthes", HashPassword.hashPassword("Mega Knight")));
-            dao.create(new UserCreationData("b.heidemann", HashPassword.hashPassword("NH_PLUS")));
+            dao.createAll(List.of(
+                    new UserCreationData("Luca", HashPassword.hashPassword("15 Hogrider!")),
+                    new UserCreationData("Leon", HashPassword.hashPassword("420")),
+                    new UserCreationData("Matthes", HashPassword.hashPassword("Mega Knight")),
+                    new UserCreationData("b.heidemann", HashPassword.hashPassword("NH_PLUS"))
+            ));
         }
     }
 
@@ -78,9 +82,16 @@ public class SetUpUserDB {
      * <br>
      * Sets up the database tables and fills them with some test data.
      *
-     * @param args Command line arguments.
+     * Exits with status <code>1</code> if the user table could not be set up.
+     *
+     * @param args Command line arguments, <code>--wipe</code> wipes the user table first.
      */
     public static void main(String[] args) {
-        SetUpUserDB.setUpUserDB();
+        if (List.of(args).contains("--wipe")) {
+            SetUpUserDB.wipeDb();
+        }
+        if (!SetUpUserDB.setUpUserDB()) {
+            System.exit(1);
+        }
     }
 }
@@ -0,0 +1,128 @@
+package de.hitec.nhplus.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Utility class to read the settings of the application from properties files. The defaults of a settings file are
+ * read from the class path, a file of the same name in the <code>db</code> folder overrides single values. Values
+ * that cannot be parsed are reported on the console and replaced by the default of the caller.
+ */
+public class Settings {
+
+    private static final Path OVERRIDE_FOLDER = Path.of("db");
+
+    private Settings() {
+    }
+
+    /**
+     * Loads the defaults of the given settings file from the class path and applies the overrides from the
+     * <code>db</code> folder.
+     *
+     * @param fileName Name of the file, for example <code>database.properties</code>.
+     * @return The merged properties.
+     */
+    public static Properties load(String fileName) {
+        Properties properties = new Properties();
+
+        try (InputStream defaults = Settings.class.getResourceAsStream("/de/hitec/nhplus/" + fileName)) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+
+        Path overrideFile = OVERRIDE_FOLDER.resolve(fileName);
+        if (Files.isRegularFile(overrideFile)) {
+            try (InputStream overrides = Files.newInputStream(overrideFile)) {
+                properties.load(overrides);
+            } catch (IOException exception) {
+                exception.printStackTrace();
+            }
+        }
+
+        return properties;
+    }
+
+    /**
+     * Reads a number of the given key. Invalid values are reported and replaced by the default.
+     *
+     * @param properties   Properties to read from.
+     * @param key          Key of the value.
+     * @param defaultValue Value used if the key is missing or invalid.
+     * @return The value of the key.
+     */
+    public static long readNumber(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank())
+            return defaultValue;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException exception) {
+            Settings.reportInvalid(key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads a decimal number of the given key. Invalid values are reported and replaced by the default.
+     *
+     * @param properties   Properties to read from.
+     * @param key          Key of the value.
+     * @param defaultValue Value used if the key is missing or invalid.
+     * @return The value of the key.
+     */
+    public static double readDecimal(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank())
+            return defaultValue;
+
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException exception) {
+            Settings.reportInvalid(key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads an enum value of the given key, ignoring the case. Invalid values are reported and replaced by the
+     * default.
+     *
+     * @param properties   Properties to read from.
+     * @param key          Key of the value.
+     * @param type         Enum type of the value.
+     * @param defaultValue Value used if the key is missing or invalid.
+     * @param <E>          Enum type of the value.
+     * @return The value of the key.
+     */
+    public static <E extends Enum<E>> E readEnum(Properties properties, String key, Class<E> type, E defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank())
+            return defaultValue;
+
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            Settings.reportInvalid(key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reports a value that cannot be parsed.
+     *
+     * @param key          Key of the value.
+     * @param value        The invalid value.
+     * @param defaultValue Value used instead.
+     */
+    public static void reportInvalid(String key, String value, Object defaultValue) {
+        System.out.println("Invalid setting " + key + "=" + value + ", using " + defaultValue);
+    }
+}